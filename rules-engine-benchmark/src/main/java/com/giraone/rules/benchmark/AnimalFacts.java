@@ -0,0 +1,17 @@
+package com.giraone.rules.benchmark;
+
+/**
+ * The input facts of the benchmarks, taken from the animal scenario of the rule book tests.
+ */
+public class AnimalFacts {
+
+    final String animalName;
+    final boolean mammal;
+    final int weightInKg;
+
+    public AnimalFacts(String animalName, boolean mammal, int weightInKg) {
+        this.animalName = animalName;
+        this.mammal = mammal;
+        this.weightInKg = weightInKg;
+    }
+}
@@ -0,0 +1,12 @@
+package com.giraone.rules.benchmark;
+
+/**
+ * The output result of the benchmarks. The rules only count and set constant strings,
+ * so that the measured time and allocations are dominated by the engine and not by the rules.
+ */
+public class Result {
+
+    int matches;
+    String conclusion;
+    String hint;
+}
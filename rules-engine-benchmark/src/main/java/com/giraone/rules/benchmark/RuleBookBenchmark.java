@@ -0,0 +1,122 @@
+package com.giraone.rules.benchmark;
+
+import com.giraone.rules.CompiledRuleBook;
+import com.giraone.rules.EvaluationContext;
+import com.giraone.rules.EvaluationListener;
+import com.giraone.rules.Outcome;
+import com.giraone.rules.RuleBook;
+import com.giraone.rules.SpecializedRuleBook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Benchmarks of {@link RuleBook#applyOnFacts(Object, Object)} and of the compiled rule book
+ * for different kinds and sizes of rule books, with and without logging.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RuleBookBenchmark {
+
+    public enum Kind {
+        FLAT, GROUPED, OUTCOME_HEAVY
+    }
+
+    @Param({ "10", "100", "1000", "10000", "100000" })
+    public int size;
+
+    @Param({ "FLAT", "GROUPED", "OUTCOME_HEAVY" })
+    public Kind kind;
+
+    private final AnimalFacts[] animals = {
+        new AnimalFacts("virus", true, 0),
+        new AnimalFacts("sea hawk", false, 1),
+        new AnimalFacts("cow", true, 750),
+        new AnimalFacts("whale", true, 200000)
+    };
+
+    private RuleBook<AnimalFacts, Result> ruleBook;
+    private CompiledRuleBook<AnimalFacts, Result> compiledRuleBook;
+    private SpecializedRuleBook<AnimalFacts, Result> specializedRuleBook;
+    private EvaluationContext<AnimalFacts, Result> context;
+    private BiConsumer<String, Boolean> logWhen;
+    private BiConsumer<String, Boolean> logThen;
+    private EvaluationListener listener;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+
+        switch (kind) {
+            case FLAT:
+                ruleBook = RuleBooks.flat(size);
+                break;
+            case GROUPED:
+                ruleBook = RuleBooks.grouped(size);
+                break;
+            default:
+                ruleBook = RuleBooks.outcomeHeavy(size);
+        }
+        compiledRuleBook = ruleBook.compile();
+        specializedRuleBook = compiledRuleBook.specialize();
+        context = compiledRuleBook.newContext();
+        // a "logger", that consumes what a real logger would format
+        logWhen = (description, value) -> {
+            blackhole.consume(description);
+            blackhole.consume(value);
+        };
+        logThen = logWhen;
+        listener = EvaluationListener.of(logWhen, logThen);
+    }
+
+    private AnimalFacts nextAnimal() {
+        return animals[next++ & 3];
+    }
+
+    @Benchmark
+    public Outcome<AnimalFacts, Result> ruleBook() {
+        return ruleBook.applyOnFacts(nextAnimal(), new Result());
+    }
+
+    @Benchmark
+    public Outcome<AnimalFacts, Result> ruleBookWithLog() {
+        return ruleBook.applyOnFacts(nextAnimal(), new Result(), logWhen, logThen);
+    }
+
+    @Benchmark
+    public Outcome<AnimalFacts, Result> compiled() {
+        return compiledRuleBook.applyOnFacts(nextAnimal(), new Result());
+    }
+
+    @Benchmark
+    public Outcome<AnimalFacts, Result> compiledWithContext() {
+        return compiledRuleBook.applyOnFacts(context, nextAnimal(), new Result());
+    }
+
+    @Benchmark
+    public Outcome<AnimalFacts, Result> compiledWithListener() {
+        return compiledRuleBook.applyOnFacts(nextAnimal(), new Result(), listener);
+    }
+
+    @Benchmark
+    public Outcome<AnimalFacts, Result> specialized() {
+        return specializedRuleBook.applyOnFacts(nextAnimal(), new Result());
+    }
+}
@@ -0,0 +1,101 @@
+package com.giraone.rules.benchmark;
+
+import com.giraone.rules.Rule;
+import com.giraone.rules.RuleBook;
+
+/**
+ * Generators for the rule books of the benchmarks. All rule books start with the two stop rules of the animal scenario
+ * followed by threshold rules on the weight, so that a part of the rules matches for each animal.
+ */
+final class RuleBooks {
+
+    /** The number of rules within one group of the grouped rule book. */
+    static final int GROUP_SIZE = 10;
+
+    private RuleBooks() {
+    }
+
+    /**
+     * A flat rule book with the given number of rules.
+     */
+    static RuleBook<AnimalFacts, Result> flat(int size) {
+
+        final RuleBook<AnimalFacts, Result> ruleBook = animalStopRules();
+        for (int i = 2; i < size; i++) {
+            ruleBook.addRule(thresholdRule(i));
+        }
+        return ruleBook;
+    }
+
+    /**
+     * A rule book with a mammal group, that contains groups of {@link #GROUP_SIZE} threshold rules, each group
+     * having its own threshold. The size is the number of leaf rules.
+     */
+    static RuleBook<AnimalFacts, Result> grouped(int size) {
+
+        final RuleBook<AnimalFacts, Result> ruleBook = animalStopRules();
+        ruleBook.addRule(new Rule<AnimalFacts, Result>()
+            .whenFacts("If animal is a mammal?")
+            .whenFacts(facts -> facts.mammal)
+            .thenGroupRules(mammals -> {
+                for (int g = 2; g < size; g += GROUP_SIZE) {
+                    final int groupStart = g;
+                    final int groupThreshold = threshold(g);
+                    mammals.addRule(new Rule<AnimalFacts, Result>()
+                        .whenFacts("If mammal weights more than " + groupThreshold + "kg?")
+                        .whenFacts(facts -> facts.weightInKg > groupThreshold)
+                        .thenGroupRules(group -> {
+                            for (int i = groupStart; i < Math.min(groupStart + GROUP_SIZE, size); i++) {
+                                group.addRule(thresholdRule(i));
+                            }
+                        }));
+                }
+            }));
+        return ruleBook;
+    }
+
+    /**
+     * A flat rule book, where each threshold rule also has a condition on the outcome.
+     */
+    static RuleBook<AnimalFacts, Result> outcomeHeavy(int size) {
+
+        final RuleBook<AnimalFacts, Result> ruleBook = animalStopRules();
+        for (int i = 2; i < size; i++) {
+            ruleBook.addRule(thresholdRule(i)
+                .whenOutcome("and if less than 1000 rules matched so far")
+                .whenOutcome(result -> result.matches < 1000));
+        }
+        return ruleBook;
+    }
+
+    private static RuleBook<AnimalFacts, Result> animalStopRules() {
+
+        return new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts("If there is no weight given?")
+                .whenFacts(facts -> facts.weightInKg <= 0)
+                .thenStopWith("Stop processing and give a hint to set the weight.")
+                .thenStopWith(outcome -> outcome.result.hint = "You must set a positive weight.")
+            )
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts("If animal is no mammal?")
+                .whenFacts(facts -> !facts.mammal)
+                .thenStopWith("Stop processing and conclude, that the animal does not give milk.")
+                .thenStopWith(outcome -> outcome.result.conclusion = "does not produce milk")
+            );
+    }
+
+    private static Rule<AnimalFacts, Result> thresholdRule(int i) {
+
+        final int threshold = threshold(i);
+        return new Rule<AnimalFacts, Result>()
+            .whenFacts("If animal weights more than " + threshold + "kg?")
+            .whenFacts(facts -> facts.weightInKg > threshold)
+            .thenProceedWith("Count the match.")
+            .thenProceedWith(outcome -> outcome.result.matches++);
+    }
+
+    private static int threshold(int i) {
+        return (int) ((i * 7919L) % 250_000L);
+    }
+}
@@ -0,0 +1,296 @@
+package com.giraone.rules.flow;
+
+import com.giraone.rules.CompiledRuleBook;
+import com.giraone.rules.Outcome;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A {@link Flow.Processor}, that applies a {@link CompiledRuleBook} on each facts of a stream and publishes the outcomes.
+ * <ul>
+ *     <li>At most <code>bufferSize</code> facts are requested from upstream, that are not yet delivered downstream,
+ *     so the internal buffer is bounded and the downstream demand is passed upstream.</li>
+ *     <li>Up to <code>parallelism</code> facts are evaluated at the same time on the executor.</li>
+ *     <li>When <code>ordered</code> is true, the outcomes are published in the order of the facts,
+ *     otherwise as soon as they are available.</li>
+ * </ul>
+ * The processor supports exactly one subscriber. This class needs Java 9+.
+ *
+ * @param <F> The type of the input facts.
+ * @param <R> The type of the output result.
+ */
+public class RuleBookProcessor<F, R> implements Flow.Processor<F, Outcome<F, R>> {
+
+    private final CompiledRuleBook<F, R> ruleBook;
+    private final Supplier<? extends R> resultSupplier;
+    private final Executor executor;
+    private final int parallelism;
+    private final int bufferSize;
+    private final boolean ordered;
+
+    private final Queue<Item<F>> input = new ConcurrentLinkedQueue<>();
+    private final ConcurrentHashMap<Long, Outcome<F, R>> orderedOutput = new ConcurrentHashMap<>();
+    private final Queue<Outcome<F, R>> unorderedOutput = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final AtomicInteger drainWip = new AtomicInteger();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong(); // received from upstream, but not yet published
+
+    private volatile Flow.Subscription upstream;
+    private volatile Flow.Subscriber<? super Outcome<F, R>> downstream;
+    private volatile boolean upstreamDone;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+    private volatile boolean terminated;
+    private long received; // only used by onNext, which is called serially
+    private long nextToPublish; // only used within drain, which is serialized
+
+    /**
+     * Create a processor with the {@link CompiledRuleBook#defaultExecutor() default executor}, one worker per available processor,
+     * a buffer of {@link Flow#defaultBufferSize()} and ordered output.
+     * @param ruleBook The rule book to apply.
+     * @param resultSupplier A supplier for the output result object of each facts.
+     */
+    public RuleBookProcessor(CompiledRuleBook<F, R> ruleBook, Supplier<? extends R> resultSupplier) {
+        this(ruleBook, resultSupplier, CompiledRuleBook.defaultExecutor(), Runtime.getRuntime().availableProcessors(),
+            Flow.defaultBufferSize(), true);
+    }
+
+    /**
+     * Create a processor.
+     * @param ruleBook The rule book to apply.
+     * @param resultSupplier A supplier for the output result object of each facts.
+     * @param executor The executor, on which the facts are evaluated.
+     * @param parallelism The maximum number of facts, that are evaluated at the same time.
+     * @param bufferSize The maximum number of facts, that are requested from upstream, but not yet published downstream.
+     * @param ordered true, if the outcomes must be published in the order of the facts.
+     */
+    public RuleBookProcessor(CompiledRuleBook<F, R> ruleBook, Supplier<? extends R> resultSupplier,
+                             Executor executor, int parallelism, int bufferSize, boolean ordered) {
+
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, but was " + parallelism);
+        }
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be at least 1, but was " + bufferSize);
+        }
+        this.ruleBook = Objects.requireNonNull(ruleBook, "ruleBook");
+        this.resultSupplier = Objects.requireNonNull(resultSupplier, "resultSupplier");
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.parallelism = parallelism;
+        this.bufferSize = bufferSize;
+        this.ordered = ordered;
+    }
+
+    //- upstream -------------------------------------------------------------------------------------------------------
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        subscription.request(bufferSize);
+    }
+
+    @Override
+    public void onNext(F facts) {
+
+        if (cancelled || terminated) {
+            return;
+        }
+        pending.incrementAndGet();
+        input.offer(new Item<>(received++, Objects.requireNonNull(facts, "facts")));
+        startWorkers();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    //- downstream -----------------------------------------------------------------------------------------------------
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Outcome<F, R>> subscriber) {
+
+        Objects.requireNonNull(subscriber, "subscriber");
+        synchronized (this) {
+            if (downstream != null) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("RuleBookProcessor supports only one subscriber"));
+                return;
+            }
+            downstream = subscriber;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    error = new IllegalArgumentException("request must be positive, but was " + n);
+                    cancelUpstream();
+                } else {
+                    requested.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+                }
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                cancelUpstream();
+                input.clear();
+            }
+        });
+        drain();
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private void startWorkers() {
+
+        while (!input.isEmpty() && !cancelled) {
+            final int active = activeWorkers.get();
+            if (active >= parallelism) {
+                return;
+            }
+            if (activeWorkers.compareAndSet(active, active + 1)) {
+                try {
+                    executor.execute(this::work);
+                } catch (RuntimeException e) {
+                    activeWorkers.decrementAndGet();
+                    fail(e);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void work() {
+
+        try {
+            Item<F> item;
+            while (!cancelled && (item = input.poll()) != null) {
+                final Outcome<F, R> outcome = ruleBook.applyOnFacts(item.facts, resultSupplier.get());
+                if (ordered) {
+                    orderedOutput.put(item.sequence, outcome);
+                } else {
+                    unorderedOutput.offer(outcome);
+                }
+                drain();
+            }
+        } catch (RuntimeException | Error e) {
+            fail(e);
+        } finally {
+            activeWorkers.decrementAndGet();
+        }
+        // an item may have been added after the last poll, but before the decrement
+        startWorkers();
+    }
+
+    private void fail(Throwable throwable) {
+        error = throwable;
+        cancelUpstream();
+        drain();
+    }
+
+    private void cancelUpstream() {
+        final Flow.Subscription subscription = upstream;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private Outcome<F, R> pollPublishable() {
+
+        if (!ordered) {
+            return unorderedOutput.poll();
+        }
+        final Outcome<F, R> outcome = orderedOutput.remove(nextToPublish);
+        if (outcome != null) {
+            nextToPublish++;
+        }
+        return outcome;
+    }
+
+    /**
+     * Publish as many outcomes as requested and available. Serialized, so only one thread calls the subscriber at a time.
+     */
+    private void drain() {
+
+        if (drainWip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            final Flow.Subscriber<? super Outcome<F, R>> subscriber = downstream;
+            if (subscriber != null && !cancelled && !terminated) {
+                if (error != null) {
+                    terminated = true;
+                    subscriber.onError(error);
+                } else {
+                    final long r = requested.get();
+                    long published = 0;
+                    while (published != r) {
+                        final Outcome<F, R> outcome = pollPublishable();
+                        if (outcome == null) {
+                            break;
+                        }
+                        subscriber.onNext(outcome);
+                        published++;
+                    }
+                    if (published > 0) {
+                        if (r != Long.MAX_VALUE) {
+                            requested.addAndGet(-published);
+                        }
+                        pending.addAndGet(-published);
+                        if (!upstreamDone) {
+                            upstream.request(published);
+                        }
+                    }
+                    if (upstreamDone && pending.get() == 0) {
+                        terminated = true;
+                        subscriber.onComplete();
+                    }
+                }
+            }
+            missed = drainWip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private static final class Item<F> {
+
+        final long sequence;
+        final F facts;
+
+        Item(long sequence, F facts) {
+            this.sequence = sequence;
+            this.facts = facts;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.giraone.rules.flow;
+
+import com.giraone.rules.CompiledRuleBook;
+import com.giraone.rules.Outcome;
+import com.giraone.rules.Rule;
+import com.giraone.rules.RuleBook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleBookProcessorTest {
+
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    void processor_publishesAllOutcomes(boolean ordered) throws Exception {
+
+        // arrange
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        RuleBookProcessor<AnimalFacts, Result> processor = new RuleBookProcessor<>(
+            simple(), Result::new, executorService, 4, 16, ordered);
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        processor.subscribe(subscriber);
+
+        // act
+        try (SubmissionPublisher<AnimalFacts> publisher = new SubmissionPublisher<>(executorService, 8)) {
+            publisher.subscribe(processor);
+            for (int i = 0; i < 1000; i++) {
+                publisher.submit(new AnimalFacts("animal" + i, true, i % 2 == 0 ? 750 : 200000));
+            }
+        }
+        List<Outcome<AnimalFacts, Result>> outcomes = subscriber.completed.get(20, TimeUnit.SECONDS);
+        executorService.shutdown();
+
+        // assert
+        List<String> expectedNames = IntStream.range(0, 1000).mapToObj(i -> "animal" + i).collect(Collectors.toList());
+        List<String> names = outcomes.stream().map(outcome -> outcome.facts.animalName).collect(Collectors.toList());
+        if (ordered) {
+            assertThat(names).isEqualTo(expectedNames);
+        } else {
+            assertThat(names).containsExactlyInAnyOrderElementsOf(expectedNames);
+        }
+        assertThat(outcomes).allSatisfy(outcome -> assertThat(outcome.result.conclusion).endsWith("cannot fly."));
+    }
+
+    @Test
+    void processor_requestsNoMoreThanBufferSizeFromUpstream() throws Exception {
+
+        // arrange
+        int bufferSize = 8;
+        RuleBookProcessor<AnimalFacts, Result> processor = new RuleBookProcessor<>(
+            simple(), Result::new, Runnable::run, 1, bufferSize, true);
+        AtomicLong upstreamRequested = new AtomicLong();
+        processor.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                upstreamRequested.addAndGet(n);
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        CollectingSubscriber subscriber = new CollectingSubscriber(2);
+        processor.subscribe(subscriber);
+
+        // act
+        for (int i = 0; i < bufferSize; i++) {
+            processor.onNext(new AnimalFacts("animal" + i, true, 750));
+        }
+
+        // assert - only the 2 outcomes requested downstream are published and replaced upstream
+        assertThat(subscriber.outcomes).hasSize(2);
+        assertThat(upstreamRequested).hasValue(bufferSize + 2);
+
+        // act
+        subscriber.subscription.request(Long.MAX_VALUE);
+        processor.onComplete();
+
+        // assert
+        assertThat(subscriber.completed.get(5, TimeUnit.SECONDS)).hasSize(bufferSize);
+    }
+
+    @Test
+    void processor_publishesErrorOfRule() throws Exception {
+
+        // arrange
+        CompiledRuleBook<AnimalFacts, Result> ruleBook = new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> facts.weightInKg == 42)
+                .thenStopWith(outcome -> {
+                    throw new IllegalArgumentException("unexpected weight");
+                }))
+            .compile();
+        RuleBookProcessor<AnimalFacts, Result> processor = new RuleBookProcessor<>(ruleBook, Result::new);
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        processor.subscribe(subscriber);
+
+        // act
+        try (SubmissionPublisher<AnimalFacts> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(processor);
+            for (int i = 0; i < 100; i++) {
+                publisher.submit(new AnimalFacts("animal" + i, true, i));
+            }
+        }
+
+        // assert
+        assertThat(subscriber.completed).failsWithin(10, TimeUnit.SECONDS)
+            .withThrowableOfType(Exception.class)
+            .withCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static CompiledRuleBook<AnimalFacts, Result> simple() {
+
+        return new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> facts.weightInKg <= 0)
+                .thenStopWith(outcome -> outcome.result.conclusion = "A " + outcome.facts.animalName + " cannot be analyzed."))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> facts.mammal && facts.weightInKg > 2)
+                .thenProceedWith(outcome -> outcome.result.conclusion = "A " + outcome.facts.animalName + " cannot fly."))
+            .compile();
+    }
+
+    private static class AnimalFacts {
+
+        final String animalName;
+        final boolean mammal;
+        final int weightInKg;
+
+        AnimalFacts(String animalName, boolean mammal, int weightInKg) {
+            this.animalName = animalName;
+            this.mammal = mammal;
+            this.weightInKg = weightInKg;
+        }
+    }
+
+    private static class Result {
+
+        String conclusion;
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<Outcome<AnimalFacts, Result>> {
+
+        final long initialRequest;
+        final List<Outcome<AnimalFacts, Result>> outcomes = Collections.synchronizedList(new ArrayList<>());
+        final CompletableFuture<List<Outcome<AnimalFacts, Result>>> completed = new CompletableFuture<>();
+        Flow.Subscription subscription;
+
+        CollectingSubscriber() {
+            this(Long.MAX_VALUE);
+        }
+
+        CollectingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(Outcome<AnimalFacts, Result> item) {
+            outcomes.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed.complete(new ArrayList<>(outcomes));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.giraone.rules.jfr;
+
+import com.giraone.rules.EvaluationRecorder;
+import com.giraone.rules.RuleInfo;
+import jdk.jfr.EventType;
+
+/**
+ * An {@link EvaluationRecorder}, that emits JDK Flight Recorder events:
+ * <ul>
+ *     <li><code>com.giraone.rules.Evaluation</code> for each evaluation of facts by a compiled rule book,</li>
+ *     <li><code>com.giraone.rules.RuleGroup</code> for the grouped rules of each applied group.</li>
+ * </ul>
+ * It is registered as a service, so the engine uses it, as soon as this module is on the class path.
+ * The events are enabled, disabled and given thresholds by the standard JFR settings, e.g. in a <code>.jfc</code> file.
+ * The enabled checks read the cached {@link EventType}s, so disabled events are not created at all.
+ */
+public final class FlightRecorderEvaluationRecorder implements EvaluationRecorder {
+
+    private static final EventType EVALUATION = EventType.getEventType(RuleBookEvaluationEvent.class);
+    private static final EventType GROUP = EventType.getEventType(RuleGroupEvent.class);
+
+    @Override
+    public boolean isEvaluationEnabled() {
+        return EVALUATION.isEnabled();
+    }
+
+    @Override
+    public Object evaluationStart() {
+
+        final RuleBookEvaluationEvent event = new RuleBookEvaluationEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void evaluationEnd(Object token, boolean stopped) {
+
+        final RuleBookEvaluationEvent event = (RuleBookEvaluationEvent) token;
+        if (event.shouldCommit()) {
+            event.stopped = stopped;
+            event.commit();
+        }
+    }
+
+    @Override
+    public boolean isGroupEnabled() {
+        return GROUP.isEnabled();
+    }
+
+    @Override
+    public Object groupEnter(RuleInfo group) {
+
+        final RuleGroupEvent event = new RuleGroupEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void groupExit(Object token, RuleInfo group, boolean stopped) {
+
+        final RuleGroupEvent event = (RuleGroupEvent) token;
+        if (event.shouldCommit()) {
+            event.ruleId = group.getId();
+            event.whenFactsDescription = group.getQualifiedWhenFactsDescription();
+            event.stopped = stopped;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.giraone.rules.jfr;
+
+import com.giraone.rules.CompiledRuleBook;
+import com.giraone.rules.EvaluationListener;
+import com.giraone.rules.RuleInfo;
+import jdk.jfr.EventType;
+
+/**
+ * An {@link EvaluationListener}, that emits a JDK Flight Recorder event <code>com.giraone.rules.Rule</code>
+ * for each applied then clause. There may be many of these events per evaluation, so the event is disabled by default
+ * and the listener is only needed, when the event is enabled. The evaluation and group events are emitted by the
+ * {@link FlightRecorderEvaluationRecorder} without a listener.
+ * <p>
+ * The enabled check reads the cached {@link EventType} before an event is created, so a disabled event is not created
+ * and no descriptions are resolved. The listener has no state, so one instance can be used by many threads,
+ * e.g. with {@link CompiledRuleBook#newContext(EvaluationListener)}.
+ */
+public final class FlightRecorderListener implements EvaluationListener {
+
+    private static final EventType RULE = EventType.getEventType(RuleEvent.class);
+
+    @Override
+    public void onThen(RuleInfo rule, boolean stopped) {
+
+        if (!RULE.isEnabled()) {
+            return;
+        }
+        final RuleEvent event = new RuleEvent();
+        if (event.shouldCommit()) {
+            event.ruleId = rule.getId();
+            event.whenFactsDescription = rule.getQualifiedWhenFactsDescription();
+            event.thenDescription = rule.getThenDescription();
+            event.stopped = stopped;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.giraone.rules.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JDK Flight Recorder event for the evaluation of a rule book on one facts object, see {@link FlightRecorderEvaluationRecorder}.
+ */
+@Name("com.giraone.rules.Evaluation")
+@Label("Rule Book Evaluation")
+@Category("Rules Engine")
+@Description("Application of all rules of a rule book on one facts object")
+final class RuleBookEvaluationEvent extends Event {
+
+    @Label("Stopped")
+    @Description("A rule stopped the processing")
+    boolean stopped;
+}
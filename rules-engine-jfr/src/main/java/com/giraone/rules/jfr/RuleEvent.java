@@ -0,0 +1,35 @@
+package com.giraone.rules.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JDK Flight Recorder event for each applied then clause of a rule, see {@link FlightRecorderListener}.
+ * There may be many of these events per evaluation, so the event is disabled by default.
+ */
+@Name("com.giraone.rules.Rule")
+@Label("Rule")
+@Category("Rules Engine")
+@Description("Application of the then clause of a rule")
+@Enabled(false)
+@StackTrace(false)
+final class RuleEvent extends Event {
+
+    @Label("Rule Id")
+    String ruleId;
+
+    @Label("When Facts Description")
+    String whenFactsDescription;
+
+    @Label("Then Description")
+    String thenDescription;
+
+    @Label("Stopped")
+    @Description("The rule stopped the processing")
+    boolean stopped;
+}
@@ -0,0 +1,27 @@
+package com.giraone.rules.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JDK Flight Recorder event for the application of the grouped rules of a rule, see {@link FlightRecorderEvaluationRecorder}.
+ */
+@Name("com.giraone.rules.RuleGroup")
+@Label("Rule Group")
+@Category("Rules Engine")
+@Description("Application of the grouped rules of a rule")
+final class RuleGroupEvent extends Event {
+
+    @Label("Rule Id")
+    String ruleId;
+
+    @Label("When Facts Description")
+    String whenFactsDescription;
+
+    @Label("Stopped")
+    @Description("A grouped rule stopped the processing")
+    boolean stopped;
+}
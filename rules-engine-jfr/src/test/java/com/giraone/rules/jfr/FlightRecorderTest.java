@@ -0,0 +1,134 @@
+package com.giraone.rules.jfr;
+
+import com.giraone.rules.CompiledRuleBook;
+import com.giraone.rules.LinkedRuleBook;
+import com.giraone.rules.Rule;
+import com.giraone.rules.RuleBook;
+import com.giraone.rules.SpecializedRuleBook;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlightRecorderTest {
+
+    @Test
+    void recorder_emitsEvaluationAndGroupEventsWithoutListener(@TempDir Path tempDir) throws Exception {
+
+        // arrange
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = grouped();
+
+        // act
+        List<RecordedEvent> events = record(tempDir, recording -> {
+            recording.enable(RuleBookEvaluationEvent.class).withoutThreshold();
+            recording.enable(RuleGroupEvent.class).withoutThreshold();
+        }, () -> compiledRuleBook.applyOnFacts(new AnimalFacts("whale", true, 200000), new Result()));
+
+        // assert
+        assertThat(events).extracting(event -> event.getEventType().getName())
+            .containsExactlyInAnyOrder("com.giraone.rules.Evaluation", "com.giraone.rules.RuleGroup");
+        assertThat(events).filteredOn(event -> event.getEventType().getName().equals("com.giraone.rules.RuleGroup"))
+            .extracting(event -> event.getString("ruleId"))
+            .containsExactly("mammal");
+    }
+
+    @Test
+    void recorder_emitsEvaluationEventsOfAllRuleBooks(@TempDir Path tempDir) throws Exception {
+
+        // arrange
+        RuleBook<AnimalFacts, Result> ruleBook = groupedRuleBook();
+        SpecializedRuleBook<AnimalFacts, Result> specializedRuleBook = ruleBook.compile().specialize();
+        LinkedRuleBook<AnimalFacts, Result> linkedRuleBook = ruleBook.compile().link();
+
+        // act
+        List<RecordedEvent> events = record(tempDir, recording -> recording.enable(RuleBookEvaluationEvent.class).withoutThreshold(), () -> {
+            ruleBook.applyOnFacts(new AnimalFacts("whale", true, 200000), new Result());
+            specializedRuleBook.applyOnFacts(new AnimalFacts("whale", true, 200000), new Result());
+            linkedRuleBook.applyOnFacts(new AnimalFacts("cow", true, 750), new Result());
+        });
+
+        // assert
+        assertThat(events).filteredOn(event -> event.getEventType().getName().equals("com.giraone.rules.Evaluation"))
+            .extracting(event -> event.getBoolean("stopped"))
+            .containsExactly(true, true, false);
+    }
+
+    @Test
+    void listener_emitsRuleEventsWhenEnabled(@TempDir Path tempDir) throws Exception {
+
+        // arrange
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = grouped();
+        FlightRecorderListener listener = new FlightRecorderListener();
+
+        // act
+        Result result = new Result();
+        List<RecordedEvent> events = record(tempDir, recording -> recording.enable(RuleEvent.class),
+            () -> compiledRuleBook.applyOnFacts(new AnimalFacts("whale", true, 200000), result, listener));
+
+        // assert
+        assertThat(result.conclusion).isEqualTo("A whale must live in water.");
+        assertThat(events).filteredOn(event -> event.getEventType().getName().equals("com.giraone.rules.Rule"))
+            .extracting(event -> event.getString("ruleId"))
+            .containsExactly("mammal.0");
+    }
+
+    private static List<RecordedEvent> record(Path tempDir, Consumer<Recording> settings, Runnable evaluation) throws Exception {
+
+        Path file = tempDir.resolve("rules.jfr");
+        try (Recording recording = new Recording()) {
+            settings.accept(recording);
+            recording.start();
+            evaluation.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+            .filter(event -> event.getEventType().getName().startsWith("com.giraone.rules."))
+            .collect(Collectors.toList());
+    }
+
+    private static CompiledRuleBook<AnimalFacts, Result> grouped() {
+        return groupedRuleBook().compile();
+    }
+
+    private static RuleBook<AnimalFacts, Result> groupedRuleBook() {
+
+        return new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> facts.weightInKg <= 0)
+                .thenStopWith(outcome -> outcome.result.conclusion = "A " + outcome.facts.animalName + " cannot be analyzed."))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .id("mammal")
+                .whenFacts(facts -> facts.mammal)
+                .thenGroupRules(group -> group
+                    .addRule(new Rule<AnimalFacts, Result>()
+                        .whenFacts(facts -> facts.weightInKg > 100000)
+                        .thenStopWith(outcome -> outcome.result.conclusion = "A " + outcome.facts.animalName + " must live in water."))));
+    }
+
+    private static class AnimalFacts {
+
+        final String animalName;
+        final boolean mammal;
+        final int weightInKg;
+
+        AnimalFacts(String animalName, boolean mammal, int weightInKg) {
+            this.animalName = animalName;
+            this.mammal = mammal;
+            this.weightInKg = weightInKg;
+        }
+    }
+
+    private static class Result {
+
+        String conclusion;
+    }
+}
@@ -0,0 +1,136 @@
+package com.giraone.rules.vector;
+
+/**
+ * Range conditions on primitive columns of facts, which produce a match mask for a whole batch of facts.
+ * <p>
+ * A mask is a bitmap in a <code>long[]</code>: bit <code>i &amp; 63</code> of word <code>i &gt;&gt;&gt; 6</code> is set,
+ * when the value of row <code>i</code> is within the range. Both bounds of a range are inclusive like in
+ * <code>Rule.whenFactsInRange</code>. Use {@link Integer#MIN_VALUE}, {@link Integer#MAX_VALUE} etc. for a threshold,
+ * that is open on one side. For doubles, NaN is never within a range.
+ * <p>
+ * On Java 17+ with <code>--add-modules jdk.incubator.vector</code> the values are compared with the Vector API, using as many
+ * lanes as the CPU supports, e.g. 8 or 16 ints. Otherwise, e.g. on Java 8, a scalar loop is used. See {@link #isVectorized()}.
+ * All methods are stateless and thread-safe.
+ */
+public final class ColumnConditions {
+
+    private ColumnConditions() {
+    }
+
+    /**
+     * Return, whether the conditions are evaluated with the Vector API.
+     * @return true, when running on Java 17+ with the module jdk.incubator.vector, otherwise false.
+     */
+    public static boolean isVectorized() {
+        return ColumnKernels.isVectorized();
+    }
+
+    /**
+     * Create an empty mask for the given number of rows.
+     * @param length The number of rows.
+     * @return A mask with enough words for all rows.
+     */
+    public static long[] newMask(int length) {
+        return new long[(length + Long.SIZE - 1) / Long.SIZE];
+    }
+
+    /**
+     * Test, which values of a column are within a range.
+     * @param column The values of all rows.
+     * @param from The lower bound of the range (inclusive).
+     * @param to The upper bound of the range (inclusive).
+     * @return A new mask of the rows, whose value is within the range.
+     */
+    public static long[] inRange(int[] column, int from, int to) {
+
+        final long[] mask = newMask(column.length);
+        ColumnKernels.inRange(column, 0, column.length, from, to, mask);
+        return mask;
+    }
+
+    /**
+     * Test, which values of a part of a column are within a range, e.g. for one chunk of a large batch.
+     * @param column The values of all rows.
+     * @param offset The position of the first row in the column.
+     * @param length The number of rows.
+     * @param from The lower bound of the range (inclusive).
+     * @param to The upper bound of the range (inclusive).
+     * @param mask The mask, that is overwritten with the rows, whose value is within the range. Bit 0 is the row at the offset.
+     */
+    public static void inRange(int[] column, int offset, int length, int from, int to, long[] mask) {
+
+        checkRange(column.length, offset, length, mask);
+        ColumnKernels.inRange(column, offset, length, from, to, mask);
+    }
+
+    /**
+     * Test, which values of a column are within a range.
+     * @param column The values of all rows.
+     * @param from The lower bound of the range (inclusive).
+     * @param to The upper bound of the range (inclusive).
+     * @return A new mask of the rows, whose value is within the range.
+     */
+    public static long[] inRange(long[] column, long from, long to) {
+
+        final long[] mask = newMask(column.length);
+        ColumnKernels.inRange(column, 0, column.length, from, to, mask);
+        return mask;
+    }
+
+    /**
+     * Test, which values of a part of a column are within a range, e.g. for one chunk of a large batch.
+     * @param column The values of all rows.
+     * @param offset The position of the first row in the column.
+     * @param length The number of rows.
+     * @param from The lower bound of the range (inclusive).
+     * @param to The upper bound of the range (inclusive).
+     * @param mask The mask, that is overwritten with the rows, whose value is within the range. Bit 0 is the row at the offset.
+     */
+    public static void inRange(long[] column, int offset, int length, long from, long to, long[] mask) {
+
+        checkRange(column.length, offset, length, mask);
+        ColumnKernels.inRange(column, offset, length, from, to, mask);
+    }
+
+    /**
+     * Test, which values of a column are within a range.
+     * @param column The values of all rows.
+     * @param from The lower bound of the range (inclusive).
+     * @param to The upper bound of the range (inclusive).
+     * @return A new mask of the rows, whose value is within the range.
+     */
+    public static long[] inRange(double[] column, double from, double to) {
+
+        final long[] mask = newMask(column.length);
+        ColumnKernels.inRange(column, 0, column.length, from, to, mask);
+        return mask;
+    }
+
+    /**
+     * Test, which values of a part of a column are within a range, e.g. for one chunk of a large batch.
+     * @param column The values of all rows.
+     * @param offset The position of the first row in the column.
+     * @param length The number of rows.
+     * @param from The lower bound of the range (inclusive).
+     * @param to The upper bound of the range (inclusive).
+     * @param mask The mask, that is overwritten with the rows, whose value is within the range. Bit 0 is the row at the offset.
+     */
+    public static void inRange(double[] column, int offset, int length, double from, double to, long[] mask) {
+
+        checkRange(column.length, offset, length, mask);
+        ColumnKernels.inRange(column, offset, length, from, to, mask);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private static void checkRange(int columnLength, int offset, int length, long[] mask) {
+
+        if (offset < 0 || length < 0 || offset > columnLength - length) {
+            throw new IndexOutOfBoundsException("Rows " + offset + " to " + ((long) offset + length) + " are not within the column of "
+                + columnLength + " rows");
+        }
+        if (mask.length < (length + Long.SIZE - 1) / Long.SIZE) {
+            throw new IllegalArgumentException("A mask of " + mask.length + " words is too short for " + length + " rows");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.giraone.rules.vector;
+
+/**
+ * Selects the loops for {@link ColumnConditions}. The multi-release jar contains the {@link RangeKernels} using the
+ * Vector API only in META-INF/versions/17. They are loaded once and used, when running on Java 17+ with the incubating
+ * module jdk.incubator.vector added by <code>--add-modules jdk.incubator.vector</code>.
+ * Otherwise, e.g. on Java 8, the {@link ScalarKernels} are used.
+ */
+final class ColumnKernels {
+
+    private static final String VECTOR_KERNELS_CLASS = "com.giraone.rules.vector.VectorKernels";
+    // null, when the Vector API is not available
+    private static final RangeKernels VECTOR_KERNELS = loadVectorKernels();
+
+    private ColumnKernels() {
+    }
+
+    static boolean isVectorized() {
+        return VECTOR_KERNELS != null;
+    }
+
+    static void inRange(int[] column, int offset, int length, int from, int to, long[] mask) {
+
+        ScalarKernels.clear(mask, length);
+        if (VECTOR_KERNELS != null) {
+            VECTOR_KERNELS.inRange(column, offset, length, from, to, mask);
+        } else {
+            ScalarKernels.inRange(column, offset, 0, length, from, to, mask);
+        }
+    }
+
+    static void inRange(long[] column, int offset, int length, long from, long to, long[] mask) {
+
+        ScalarKernels.clear(mask, length);
+        if (VECTOR_KERNELS != null) {
+            VECTOR_KERNELS.inRange(column, offset, length, from, to, mask);
+        } else {
+            ScalarKernels.inRange(column, offset, 0, length, from, to, mask);
+        }
+    }
+
+    static void inRange(double[] column, int offset, int length, double from, double to, long[] mask) {
+
+        ScalarKernels.clear(mask, length);
+        if (VECTOR_KERNELS != null) {
+            VECTOR_KERNELS.inRange(column, offset, length, from, to, mask);
+        } else {
+            ScalarKernels.inRange(column, offset, 0, length, from, to, mask);
+        }
+    }
+
+    private static RangeKernels loadVectorKernels() {
+
+        try {
+            return (RangeKernels) Class.forName(VECTOR_KERNELS_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // not running from the multi-release jar on Java 17+ or without the module jdk.incubator.vector
+            return null;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.giraone.rules.vector;
+
+/**
+ * The loops of a Java version, that are not available on Java 8, e.g. the {@link ColumnKernels#isVectorized() vectorized} ones.
+ * The loops set the bits of the rows from 0 to length (exclusive) in a mask, that is already cleared.
+ */
+interface RangeKernels {
+
+    void inRange(int[] column, int offset, int length, int from, int to, long[] mask);
+
+    void inRange(long[] column, int offset, int length, long from, long to, long[] mask);
+
+    void inRange(double[] column, int offset, int length, double from, double to, long[] mask);
+}
@@ -0,0 +1,50 @@
+package com.giraone.rules.vector;
+
+/**
+ * The scalar loops for {@link ColumnConditions}. They are used on all Java versions without the Vector API
+ * and for the tail of a column, which does not fill a whole vector.
+ * The loops set the bits of the rows from start (inclusive) to end (exclusive) and do not clear the mask.
+ */
+final class ScalarKernels {
+
+    private ScalarKernels() {
+    }
+
+    static void clear(long[] mask, int length) {
+
+        final int words = (length + Long.SIZE - 1) / Long.SIZE;
+        for (int w = 0; w < words; w++) {
+            mask[w] = 0L;
+        }
+    }
+
+    static void inRange(int[] column, int offset, int start, int end, int from, int to, long[] mask) {
+
+        for (int i = start; i < end; i++) {
+            final int value = column[offset + i];
+            if (value >= from && value <= to) {
+                mask[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    static void inRange(long[] column, int offset, int start, int end, long from, long to, long[] mask) {
+
+        for (int i = start; i < end; i++) {
+            final long value = column[offset + i];
+            if (value >= from && value <= to) {
+                mask[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    static void inRange(double[] column, int offset, int start, int end, double from, double to, long[] mask) {
+
+        for (int i = start; i < end; i++) {
+            final double value = column[offset + i];
+            if (value >= from && value <= to) {
+                mask[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.giraone.rules.vector;
+
+import com.giraone.rules.ColumnRangeKernel;
+import com.giraone.rules.CompiledRuleBook;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The {@link ColumnRangeKernel} of this module, that is found by the engine with the service loader, when this module
+ * is on the class path. So {@link CompiledRuleBook#applyOnAllColumnar(List, Supplier)} tests the range rules with the
+ * loops of {@link ColumnConditions}, i.e. with the Vector API, when it is {@link ColumnConditions#isVectorized() available}.
+ */
+public final class VectorColumnRangeKernel implements ColumnRangeKernel {
+
+    @Override
+    public void inRange(long[] column, int length, long from, long to, long[] mask) {
+        ColumnConditions.inRange(column, 0, length, from, to, mask);
+    }
+}
@@ -0,0 +1,63 @@
+package com.giraone.rules.vector;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The loops for {@link ColumnConditions} using the Vector API with the preferred species of the CPU.
+ * The lanes of a vector are compared at once and the resulting vector mask is stored as bits in the mask.
+ * The number of lanes is a power of 2 and at most 64, so the bits of one vector never cross a word of the mask.
+ * The tail of a column, which does not fill a whole vector, is tested by the {@link ScalarKernels}.
+ * This class only exists in META-INF/versions/17 of the multi-release jar and is loaded by the {@link ColumnKernels}.
+ */
+final class VectorKernels implements RangeKernels {
+
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONG_SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLE_SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    VectorKernels() {
+    }
+
+    @Override
+    public void inRange(int[] column, int offset, int length, int from, int to, long[] mask) {
+
+        final int bound = INT_SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += INT_SPECIES.length()) {
+            final IntVector values = IntVector.fromArray(INT_SPECIES, column, offset + i);
+            final long bits = values.compare(VectorOperators.GE, from).and(values.compare(VectorOperators.LE, to)).toLong();
+            mask[i >>> 6] |= bits << i;
+        }
+        ScalarKernels.inRange(column, offset, i, length, from, to, mask);
+    }
+
+    @Override
+    public void inRange(long[] column, int offset, int length, long from, long to, long[] mask) {
+
+        final int bound = LONG_SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += LONG_SPECIES.length()) {
+            final LongVector values = LongVector.fromArray(LONG_SPECIES, column, offset + i);
+            final long bits = values.compare(VectorOperators.GE, from).and(values.compare(VectorOperators.LE, to)).toLong();
+            mask[i >>> 6] |= bits << i;
+        }
+        ScalarKernels.inRange(column, offset, i, length, from, to, mask);
+    }
+
+    @Override
+    public void inRange(double[] column, int offset, int length, double from, double to, long[] mask) {
+
+        final int bound = DOUBLE_SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += DOUBLE_SPECIES.length()) {
+            final DoubleVector values = DoubleVector.fromArray(DOUBLE_SPECIES, column, offset + i);
+            final long bits = values.compare(VectorOperators.GE, from).and(values.compare(VectorOperators.LE, to)).toLong();
+            mask[i >>> 6] |= bits << i;
+        }
+        ScalarKernels.inRange(column, offset, i, length, from, to, mask);
+    }
+}
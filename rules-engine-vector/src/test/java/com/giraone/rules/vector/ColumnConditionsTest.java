@@ -0,0 +1,82 @@
+package com.giraone.rules.vector;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ColumnConditionsTest {
+
+    @Test
+    void isVectorized_whenExpected() {
+
+        // The tests are run a second time against the multi-release jar with the Vector API, see pom.xml.
+        assertThat(ColumnConditions.isVectorized()).isEqualTo(Boolean.getBoolean("rules.vector.expected"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 1, 7, 63, 64, 65, 1000, 1024 })
+    void inRange_matchesScalarComparison(int length) {
+
+        // arrange
+        Random random = new Random(length);
+        int[] ints = new int[length];
+        long[] longs = new long[length];
+        double[] doubles = new double[length];
+        for (int i = 0; i < length; i++) {
+            ints[i] = random.nextInt(1000);
+            longs[i] = random.nextInt(1000) * 1_000_000_000L;
+            doubles[i] = i % 17 == 0 ? Double.NaN : random.nextDouble() * 1000.0;
+        }
+
+        // act
+        long[] intMask = ColumnConditions.inRange(ints, 250, 749);
+        long[] longMask = ColumnConditions.inRange(longs, 250_000_000_000L, Long.MAX_VALUE);
+        long[] doubleMask = ColumnConditions.inRange(doubles, Double.NEGATIVE_INFINITY, 500.0);
+
+        // assert
+        assertThat(intMask).hasSize((length + 63) / 64);
+        for (int i = 0; i < length; i++) {
+            assertThat(isSet(intMask, i)).as("int row %d", i).isEqualTo(ints[i] >= 250 && ints[i] <= 749);
+            assertThat(isSet(longMask, i)).as("long row %d", i).isEqualTo(longs[i] >= 250_000_000_000L);
+            assertThat(isSet(doubleMask, i)).as("double row %d", i).isEqualTo(doubles[i] <= 500.0);
+        }
+    }
+
+    @Test
+    void inRange_overwritesMaskForPartOfColumn() {
+
+        // arrange
+        int[] column = new int[300];
+        for (int i = 0; i < column.length; i++) {
+            column[i] = i;
+        }
+        long[] mask = { -1L, -1L };
+
+        // act
+        ColumnConditions.inRange(column, 100, 100, 150, 160, mask);
+
+        // assert
+        for (int i = 0; i < 100; i++) {
+            assertThat(isSet(mask, i)).as("row %d", i).isEqualTo(i >= 50 && i <= 60);
+        }
+        assertThat(mask[1] >>> 36).isZero();
+    }
+
+    @Test
+    void inRange_failsOnRowsOutsideOfColumn() {
+
+        assertThatThrownBy(() -> ColumnConditions.inRange(new int[10], 5, 6, 0, 1, new long[1]))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> ColumnConditions.inRange(new int[100], 0, 100, 0, 1, new long[1]))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static boolean isSet(long[] mask, int row) {
+        return (mask[row >>> 6] & (1L << row)) != 0L;
+    }
+}
@@ -0,0 +1,90 @@
+package com.giraone.rules.vector;
+
+import com.giraone.rules.ColumnRangeKernel;
+import com.giraone.rules.CompiledRuleBook;
+import com.giraone.rules.Outcome;
+import com.giraone.rules.Rule;
+import com.giraone.rules.RuleBook;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.ServiceLoader;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VectorColumnRangeKernelTest {
+
+    static class Animal {
+
+        final boolean mammal;
+        final long weightInKg;
+
+        Animal(boolean mammal, long weightInKg) {
+            this.mammal = mammal;
+            this.weightInKg = weightInKg;
+        }
+    }
+
+    static class Result {
+
+        final List<String> conclusions = new ArrayList<>();
+    }
+
+    @Test
+    void serviceLoader_findsKernel() {
+
+        // act
+        List<ColumnRangeKernel> kernels = new ArrayList<>();
+        ServiceLoader.load(ColumnRangeKernel.class).forEach(kernels::add);
+
+        // assert
+        assertThat(kernels).hasSize(1).first().isInstanceOf(VectorColumnRangeKernel.class);
+    }
+
+    @Test
+    void applyOnAllColumnar_givesSameResultsAsFactsByFacts() {
+
+        // arrange
+        Random random = new Random(42);
+        List<Animal> animals = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            animals.add(new Animal(random.nextBoolean(), random.nextInt(300_000) - 10));
+        }
+        ToLongFunction<Animal> weight = animal -> animal.weightInKg;
+        CompiledRuleBook<Animal, Result> compiledRuleBook = new RuleBook<Animal, Result>()
+            .addRule(new Rule<Animal, Result>()
+                .whenFactsInRange(weight, Long.MIN_VALUE, 0)
+                .thenStopWith(outcome -> outcome.result.conclusions.add("invalid")))
+            .addRule(new Rule<Animal, Result>()
+                .whenFacts(animal -> animal.mammal)
+                .thenGroupRules(group -> group
+                    .addRule(new Rule<Animal, Result>()
+                        .whenFactsInRange(weight, 100_001, Long.MAX_VALUE)
+                        .thenProceedWith(outcome -> outcome.result.conclusions.add("lives in water")))
+                    .addRule(new Rule<Animal, Result>()
+                        .whenFactsInRange(weight, 3, Long.MAX_VALUE)
+                        .thenProceedWith(outcome -> outcome.result.conclusions.add("cannot fly")))))
+            .addRule(new Rule<Animal, Result>()
+                .whenFactsInRange(weight, 1, 1000)
+                .thenStopWith(outcome -> outcome.result.conclusions.add("small")))
+            .addRule(new Rule<Animal, Result>()
+                .whenFactsInRange(weight, 500, 200_000)
+                .thenProceedWith(outcome -> outcome.result.conclusions.add("medium")))
+            .compile();
+        List<List<String>> expected = new ArrayList<>();
+        for (Animal animal : animals) {
+            expected.add(compiledRuleBook.applyOnFacts(animal, new Result()).result.conclusions);
+        }
+
+        // act
+        List<Outcome<Animal, Result>> outcomes = compiledRuleBook.applyOnAllColumnar(animals, Result::new);
+
+        // assert
+        assertThat(outcomes.stream().map(outcome -> outcome.result.conclusions).collect(Collectors.toList()))
+            .containsExactlyElementsOf(expected);
+    }
+}
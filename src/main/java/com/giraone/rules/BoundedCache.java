@@ -0,0 +1,270 @@
+package com.giraone.rules;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded, concurrent cache with a frequency-aware LRU policy.
+ * <ul>
+ *     <li>Reads go to a {@link ConcurrentHashMap} without locking.</li>
+ *     <li>The order of the entries and the access frequencies are kept under a lock. Reads only update them,
+ *     when the lock is free, so the policy may miss some reads under contention, but reads never wait.</li>
+ *     <li>When the cache is full, a new entry is only admitted, if its key was accessed more often than the key of the
+ *     least recently used entry, which is then evicted. So keys, that are used only once, do not evict frequently used ones.
+ *     The frequencies are estimated by a count-min sketch with 4 bit counters, which are halved periodically,
+ *     so old frequencies fade out.</li>
+ *     <li>Optionally, an entry expires after a fixed time since it was written. An expired entry is a miss and stays in the
+ *     cache, until it is replaced or evicted.</li>
+ * </ul>
+ * Keys must not be null. Callers, that accept null, must bypass the cache for it.
+ *
+ * @param <K> The key class.
+ * @param <V> The value class.
+ */
+final class BoundedCache<K, V> {
+
+    private final int maximumSize;
+    /** The time in nanoseconds after which an entry expires or 0, when entries do not expire. */
+    private final long expireAfterWriteNanos;
+    private final LongSupplier ticker;
+    private final ConcurrentHashMap<K, Entry<K, V>> entries;
+    private final FrequencySketch sketch;
+    // guards the LRU list and the sketch
+    private final ReentrantLock lock = new ReentrantLock();
+    // the sentinel of the LRU list: head.next is the least recently used entry, head.prev the most recently used one
+    private final Entry<K, V> head = new Entry<>(null, null);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    BoundedCache(int maximumSize) {
+        this(maximumSize, 0L, System::nanoTime);
+    }
+
+    /**
+     * @param maximumSize The maximum number of entries.
+     * @param expireAfterWriteNanos The time in nanoseconds after which an entry expires or 0, when entries do not expire.
+     * @param ticker The source of the time in nanoseconds, e.g. System::nanoTime.
+     */
+    BoundedCache(int maximumSize, long expireAfterWriteNanos, LongSupplier ticker) {
+
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1, but was " + maximumSize);
+        }
+        if (expireAfterWriteNanos < 0) {
+            throw new IllegalArgumentException("expireAfterWrite must not be negative, but was " + expireAfterWriteNanos + " ns");
+        }
+        this.maximumSize = maximumSize;
+        this.expireAfterWriteNanos = expireAfterWriteNanos;
+        this.ticker = ticker;
+        this.entries = new ConcurrentHashMap<>(Math.min(maximumSize, 1 << 16));
+        this.sketch = new FrequencySketch(maximumSize);
+        head.prev = head;
+        head.next = head;
+    }
+
+    /**
+     * Return the value of a key and record the access.
+     * @param key The key, which must not be null.
+     * @return The value or null, when the key is not cached or expired.
+     * @throws NullPointerException if the key is null.
+     */
+    V get(K key) {
+
+        Objects.requireNonNull(key, "key");
+        Entry<K, V> entry = entries.get(key);
+        if (entry != null && expireAfterWriteNanos > 0L && ticker.getAsLong() - entry.writeTime >= expireAfterWriteNanos) {
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        if (lock.tryLock()) {
+            try {
+                sketch.increment(key.hashCode());
+                if (entry != null && entry.prev != null) {
+                    unlink(entry);
+                    linkLast(entry);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * Add or replace the value of a key. When the cache is full, a new key is only admitted,
+     * if it is used more often than the least recently used key.
+     * @param key The key, which must not be null.
+     * @return true, if the value was cached.
+     * @throws NullPointerException if the key is null.
+     */
+    boolean put(K key, V value) {
+
+        Objects.requireNonNull(key, "key");
+        lock.lock();
+        try {
+            final Entry<K, V> existing = entries.get(key);
+            if (existing != null) {
+                existing.value = value;
+                existing.writeTime = writeTime();
+                unlink(existing);
+                linkLast(existing);
+                return true;
+            }
+            if (entries.size() >= maximumSize) {
+                final Entry<K, V> victim = head.next;
+                if (sketch.frequency(key.hashCode()) <= sketch.frequency(victim.key.hashCode())) {
+                    return false;
+                }
+                unlink(victim);
+                entries.remove(victim.key);
+            }
+            final Entry<K, V> entry = new Entry<>(key, value);
+            entry.writeTime = writeTime();
+            linkLast(entry);
+            entries.put(key, entry);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove all entries. The frequencies are kept.
+     */
+    void clear() {
+
+        lock.lock();
+        try {
+            while (head.next != head) {
+                final Entry<K, V> entry = head.next;
+                unlink(entry);
+                entries.remove(entry.key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long getHitCount() {
+        return hits.sum();
+    }
+
+    long getMissCount() {
+        return misses.sum();
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private long writeTime() {
+        return expireAfterWriteNanos > 0L ? ticker.getAsLong() : 0L;
+    }
+
+    private void linkLast(Entry<K, V> entry) {
+
+        entry.prev = head.prev;
+        entry.next = head;
+        head.prev.next = entry;
+        head.prev = entry;
+    }
+
+    private static <K, V> void unlink(Entry<K, V> entry) {
+
+        entry.prev.next = entry.next;
+        entry.next.prev = entry.prev;
+        // an unlinked entry may still be found by a concurrent get, which must not move it
+        entry.prev = null;
+        entry.next = null;
+    }
+
+    private static final class Entry<K, V> {
+
+        final K key;
+        volatile V value;
+        volatile long writeTime;
+        // guarded by the lock of the cache, null when the entry is not linked
+        Entry<K, V> prev;
+        Entry<K, V> next;
+
+        Entry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * A count-min sketch with 4 rows of 4 bit counters, packed into longs.
+     * After 10 times the maximum size of increments, all counters are halved.
+     */
+    static final class FrequencySketch {
+
+        private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        private static final long HALF_MASK = 0x7777777777777777L;
+
+        // each row has the same number of counters, 16 per long
+        private final long[] table;
+        private final int rowMask;
+        private final int sampleSize;
+        private int increments;
+
+        FrequencySketch(int maximumSize) {
+
+            int counters = 16;
+            while (counters < maximumSize && counters < (1 << 26)) {
+                counters <<= 1;
+            }
+            this.rowMask = counters - 1;
+            this.table = new long[4 * counters / 16];
+            this.sampleSize = (int) Math.min(10L * maximumSize, Integer.MAX_VALUE);
+        }
+
+        int frequency(int hashCode) {
+
+            int frequency = 15;
+            for (int row = 0; row < 4; row++) {
+                final int counter = counterOf(hashCode, row);
+                frequency = Math.min(frequency, (int) (table[counter >>> 4] >>> ((counter & 15) << 2)) & 15);
+            }
+            return frequency;
+        }
+
+        void increment(int hashCode) {
+
+            boolean added = false;
+            for (int row = 0; row < 4; row++) {
+                final int counter = counterOf(hashCode, row);
+                final int shift = (counter & 15) << 2;
+                if (((table[counter >>> 4] >>> shift) & 15) != 15) {
+                    table[counter >>> 4] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++increments >= sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & HALF_MASK;
+                }
+                increments /= 2;
+            }
+        }
+
+        /**
+         * Return the position of the counter of a hash code in a row, counted over all rows.
+         */
+        private int counterOf(int hashCode, int row) {
+
+            long hash = (hashCode + SEEDS[row]) * SEEDS[row];
+            hash += hash >>> 32;
+            return row * (rowMask + 1) + ((int) hash & rowMask);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.giraone.rules;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A rule book created by {@link CompiledRuleBook#cached(Function, int, Supplier, BiConsumer)}, that caches the results
+ * of a pure rule book by a key of the facts. Use it only, when the result depends on nothing else than the key,
+ * i.e. all rule functions are deterministic, do not use external state and the facts with the same key are equal.
+ * <p>
+ * On a miss, the rules are applied on a new result of the result supplier, which is cached. On a hit and a miss,
+ * the cached result is copied into the result of the caller, so the cached results are never changed by the callers.
+ * The cache is bounded and frequency-aware: when it is full, a key must be used more often than the least recently used
+ * one to be admitted. A cached rule book can be shared between threads without locking, as long as the rule functions,
+ * the key extractor, the result supplier and the copier are thread-safe.
+ *
+ * @param <F> The type of the input facts.
+ * @param <R> The type of the output result.
+ */
+public final class CachedRuleBook<F, R> {
+
+    private final CompiledRuleBook<F, R> ruleBook;
+    private final Function<? super F, ?> keyExtractor;
+    private final Supplier<? extends R> resultSupplier;
+    private final BiConsumer<? super R, ? super R> copier;
+    private final BoundedCache<Object, R> cache;
+
+    CachedRuleBook(CompiledRuleBook<F, R> ruleBook, Function<? super F, ?> keyExtractor, int maximumSize,
+                   Supplier<? extends R> resultSupplier, BiConsumer<? super R, ? super R> copier) {
+        this.ruleBook = ruleBook;
+        this.keyExtractor = keyExtractor;
+        this.resultSupplier = resultSupplier;
+        this.copier = copier;
+        this.cache = new BoundedCache<>(maximumSize);
+    }
+
+    /**
+     * Apply all rules on given facts or take the result from the cache and copy it into the given result.
+     * Null facts and facts with a null key are passed to the rule book without caching, so the rules are applied
+     * on the given result, like the rule book itself does.
+     * @param facts The input facts.
+     * @param result The output result object, into which the result is copied.
+     * @return The tupel of input facts and output result.
+     */
+    public Outcome<F, R> applyOnFacts(F facts, R result) {
+
+        final Object key = facts != null ? keyExtractor.apply(facts) : null;
+        if (key == null) {
+            return ruleBook.applyOnFacts(facts, result);
+        }
+        R cached = cache.get(key);
+        if (cached == null) {
+            cached = ruleBook.applyOnFacts(facts, resultSupplier.get()).result;
+            cache.put(key, cached);
+        }
+        copier.accept(cached, result);
+        return new Outcome<>(facts, result);
+    }
+
+    /**
+     * Remove all cached results, e.g. when the rules depend on reference data, that has changed.
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    /**
+     * Return the number of cached results.
+     * @return The number of cached results.
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Return the number of evaluations, whose result was taken from the cache.
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    /**
+     * Return the number of evaluations, whose result was not cached.
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+}
@@ -0,0 +1,29 @@
+package com.giraone.rules;
+
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * A loop, that tests a column of values against a range for {@link CompiledRuleBook#applyOnAllColumnar(List, Supplier)}.
+ * The column holds the values of the facts of one chunk, extracted by a rule defined with
+ * {@link Rule#whenFactsInRange(ToLongFunction, long, long)}.
+ * <p>
+ * The first kernel found by the {@link ServiceLoader} is used for all columnar evaluations, e.g. the one of the separate
+ * module <code>rules-engine-vector</code>, that uses the Vector API on Java 17+. Without a kernel, a scalar loop is used.
+ * A kernel is used by many threads, so it must be thread-safe.
+ */
+public interface ColumnRangeKernel {
+
+    /**
+     * Test, which values of a column are within a range.
+     * @param column The values of the rows. Only the rows from 0 to length (exclusive) are tested.
+     * @param length The number of rows.
+     * @param from The lower bound of the range (inclusive).
+     * @param to The upper bound of the range (inclusive).
+     * @param mask The mask, whose first <code>(length + 63) / 64</code> words are overwritten with the rows, whose value
+     *             is within the range: bit <code>i &amp; 63</code> of word <code>i &gt;&gt;&gt; 6</code> is row <code>i</code>.
+     */
+    void inRange(long[] column, int length, long from, long to, long[] mask);
+}
@@ -0,0 +1,45 @@
+package com.giraone.rules;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * The {@link ColumnRangeKernel} of the engine. It is looked up once, so the JIT sees only one kernel class.
+ */
+final class ColumnRangeKernels {
+
+    /** The kernel, when no kernel is found. */
+    static final ColumnRangeKernel SCALAR = (column, length, from, to, mask) -> {
+        final int words = (length + Long.SIZE - 1) / Long.SIZE;
+        for (int w = 0; w < words; w++) {
+            final int base = w * Long.SIZE;
+            final int end = Math.min(length, base + Long.SIZE);
+            long bits = 0L;
+            for (int i = base; i < end; i++) {
+                final long value = column[i];
+                if (value >= from && value <= to) {
+                    bits |= 1L << (i - base);
+                }
+            }
+            mask[w] = bits;
+        }
+    };
+
+    static final ColumnRangeKernel INSTANCE = load();
+
+    private ColumnRangeKernels() {
+    }
+
+    private static ColumnRangeKernel load() {
+
+        try {
+            final Iterator<ColumnRangeKernel> kernels =
+                ServiceLoader.load(ColumnRangeKernel.class, ColumnRangeKernel.class.getClassLoader()).iterator();
+            return kernels.hasNext() ? kernels.next() : SCALAR;
+        } catch (ServiceConfigurationError | LinkageError e) {
+            // e.g. a kernel, that needs a newer Java version
+            return SCALAR;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.giraone.rules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Rule-major batch evaluation for {@link CompiledRuleBook#applyOnAllColumnar(List, Supplier)}.
+ * <p>
+ * The facts are evaluated in chunks of {@link #CHUNK_SIZE}. Within a chunk, the when facts clause of one rule is tested
+ * for all facts, that are still active, producing a bitmap of matches. Then the rule is applied on the matching facts
+ * in the order of the facts and a stopped bitmap masks out the facts, whose processing was stopped, for all later rules.
+ * For each single facts, the rules are applied in the same order as in {@link CompiledRuleBook#applyOnFacts(Object, Object)},
+ * only the evaluations of different facts are interleaved.
+ * Shared conditions, indexes and segments are not used, each when clause is tested directly.
+ * Only for a rule defined with {@link Rule#whenFactsInRange(java.util.function.ToLongFunction, long, long)}, the values
+ * of the chunk are extracted into a column, that is tested at once by the {@link ColumnRangeKernel}.
+ */
+final class ColumnarEvaluation<F, R> {
+
+    /** The number of facts, that are evaluated rule by rule. A multiple of 64, so a bitmap is a whole number of words. */
+    static final int CHUNK_SIZE = 1024;
+
+    private static final int WORDS = CHUNK_SIZE / Long.SIZE;
+
+    private final CompiledRule<F, R>[] rules;
+    private final Object[] facts = new Object[CHUNK_SIZE];
+    private final Outcome<F, R>[] outcomes;
+    private final long[] active = new long[WORDS];
+    private final long[] stopped = new long[WORDS];
+    // the extracted values and their matches of a range rule
+    private final long[] column = new long[CHUNK_SIZE];
+    private final long[] rangeMatches = new long[WORDS];
+    // one bitmap of matches per group level, re-used by all rules of the level
+    private final List<long[]> matchesByLevel = new ArrayList<>();
+    private int size;
+    private int words;
+    private int offset;
+
+    @SuppressWarnings("unchecked")
+    private ColumnarEvaluation(CompiledRule<F, R>[] rules, int size) {
+        this.rules = rules;
+        this.outcomes = new Outcome[size];
+    }
+
+    static <F, R> List<Outcome<F, R>> applyOnAll(CompiledRule<F, R>[] rules, List<? extends F> facts, Supplier<? extends R> resultSupplier) {
+
+        // the chunks are read by index, so a list without random access is copied once
+        final List<? extends F> indexedFacts = facts instanceof RandomAccess ? facts : new ArrayList<>(facts);
+        final ColumnarEvaluation<F, R> evaluation = new ColumnarEvaluation<>(rules, indexedFacts.size());
+        for (int from = 0; from < indexedFacts.size(); from += CHUNK_SIZE) {
+            evaluation.applyOnChunk(indexedFacts, resultSupplier, from, Math.min(indexedFacts.size(), from + CHUNK_SIZE));
+        }
+        return Arrays.asList(evaluation.outcomes);
+    }
+
+    private void applyOnChunk(List<? extends F> allFacts, Supplier<? extends R> resultSupplier, int from, int to) {
+
+        size = to - from;
+        for (int i = 0; i < size; i++) {
+            final F fact = allFacts.get(from + i);
+            facts[i] = fact;
+            outcomes[from + i] = new Outcome<>(fact, resultSupplier.get());
+        }
+        offset = from;
+        words = (size + Long.SIZE - 1) / Long.SIZE;
+        Arrays.fill(active, 0, words, -1L);
+        if (size % Long.SIZE != 0) {
+            active[words - 1] = (1L << size) - 1;
+        }
+        Arrays.fill(stopped, 0, words, 0L);
+        applyOnLevel(rules, active, 0);
+    }
+
+    /**
+     * Apply the rules of one level on the facts, that are active on this level and not stopped.
+     */
+    private void applyOnLevel(CompiledRule<F, R>[] levelRules, long[] levelActive, int level) {
+
+        if (matchesByLevel.size() == level) {
+            matchesByLevel.add(new long[WORDS]);
+        }
+        final long[] matches = matchesByLevel.get(level);
+        for (CompiledRule<F, R> rule : levelRules) {
+            if (!testFacts(rule, levelActive, matches)) {
+                continue;
+            }
+            if (rule.groupedRules != null) {
+                if (rule.whenOutcomeFunction != null) {
+                    testOutcome(rule, matches);
+                }
+                applyOnLevel(rule.groupedRules, matches, level + 1);
+            } else {
+                applyThen(rule, matches);
+            }
+        }
+    }
+
+    /**
+     * Test the when facts clause of a rule for all active facts, that are not stopped.
+     * @return false, if there are no matches at all.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean testFacts(CompiledRule<F, R> rule, long[] levelActive, long[] matches) {
+
+        final Predicate<F> whenFacts = rule.whenFactsFunction;
+        if (whenFacts instanceof ValueCondition.LongRange) {
+            return testRange((ValueCondition.LongRange<F>) whenFacts, levelActive, matches);
+        }
+        long any = 0L;
+        for (int w = 0; w < words; w++) {
+            long candidates = levelActive[w] & ~stopped[w];
+            if (whenFacts != null) {
+                long bits = 0L;
+                final int base = w * Long.SIZE;
+                while (candidates != 0L) {
+                    final int bit = Long.numberOfTrailingZeros(candidates);
+                    candidates &= candidates - 1;
+                    if (whenFacts.test((F) facts[base + bit])) {
+                        bits |= 1L << bit;
+                    }
+                }
+                candidates = bits;
+            }
+            matches[w] = candidates;
+            any |= candidates;
+        }
+        return any != 0L;
+    }
+
+    /**
+     * Test a range condition for all active facts, that are not stopped, by extracting their values into a column.
+     * @return false, if there are no matches at all.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean testRange(ValueCondition.LongRange<F> range, long[] levelActive, long[] matches) {
+
+        long any = 0L;
+        for (int w = 0; w < words; w++) {
+            long candidates = levelActive[w] & ~stopped[w];
+            matches[w] = candidates;
+            any |= candidates;
+            final int base = w * Long.SIZE;
+            while (candidates != 0L) {
+                final int bit = Long.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+                column[base + bit] = range.extract((F) facts[base + bit]);
+            }
+        }
+        if (any == 0L) {
+            return false;
+        }
+        // the values of the other rows are left over, but masked out by the candidates
+        ColumnRangeKernels.INSTANCE.inRange(column, size, range.from, range.to, rangeMatches);
+        any = 0L;
+        for (int w = 0; w < words; w++) {
+            matches[w] &= rangeMatches[w];
+            any |= matches[w];
+        }
+        return any != 0L;
+    }
+
+    /**
+     * Remove the facts from the matches, whose outcome does not fulfill the when outcome clause of a group.
+     */
+    private void testOutcome(CompiledRule<F, R> rule, long[] matches) {
+
+        for (int w = 0; w < words; w++) {
+            long candidates = matches[w];
+            final int base = offset + w * Long.SIZE;
+            while (candidates != 0L) {
+                final int bit = Long.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+                if (!rule.whenOutcomeFunction.test(outcomes[base + bit].result)) {
+                    matches[w] &= ~(1L << bit);
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply the then clause of a rule on the matching facts in their order and mark the stopped ones.
+     */
+    private void applyThen(CompiledRule<F, R> rule, long[] matches) {
+
+        for (int w = 0; w < words; w++) {
+            long candidates = matches[w];
+            final int base = offset + w * Long.SIZE;
+            while (candidates != 0L) {
+                final int bit = Long.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+                final Outcome<F, R> outcome = outcomes[base + bit];
+                if ((rule.whenOutcomeFunction == null || rule.whenOutcomeFunction.test(outcome.result))
+                    && rule.thenFunction.test(outcome)) {
+                    stopped[w] |= 1L << bit;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.giraone.rules;
+
+import java.util.function.Predicate;
+
+/**
+ * The immutable, compiled form of a single {@link Rule}, used by {@link CompiledRuleBook}.
+ * Compiled rules are created by the {@link RuleBookCompiler}.
+ *
+ * @param <F> The input facts class.
+ * @param <R> The output result class.
+ */
+final class CompiledRule<F, R> {
+
+    final RuleInfo info;
+    final Predicate<F> whenFactsFunction;
+    /** The slot of the when clause in the shared conditions of the evaluation context or -1, when the condition is not shared. */
+    final int whenFactsSlot;
+    /** The slot of the extracted value in the evaluation context, when the when clause is a cached {@link ValueCondition}, or -1. */
+    final int whenFactsValueSlot;
+    final Predicate<R> whenOutcomeFunction;
+    final Predicate<Outcome<F, R>> thenFunction;
+    final CompiledRule<F, R>[] groupedRules;
+    /** The index over the run of rules, which starts with this rule, or null. */
+    final RuleIndex<F> index;
+    /** The segment of order-independent rules, which starts with this rule, or null. */
+    final RuleSegment segment;
+
+    CompiledRule(RuleInfo info, Predicate<F> whenFactsFunction, int whenFactsSlot, int whenFactsValueSlot, Predicate<R> whenOutcomeFunction,
+                 Predicate<Outcome<F, R>> thenFunction, CompiledRule<F, R>[] groupedRules, RuleIndex<F> index,
+                 RuleSegment segment) {
+        this.info = info;
+        this.whenFactsFunction = whenFactsFunction;
+        this.whenFactsSlot = whenFactsSlot;
+        this.whenFactsValueSlot = whenFactsValueSlot;
+        this.whenOutcomeFunction = whenOutcomeFunction;
+        this.thenFunction = thenFunction;
+        this.groupedRules = groupedRules;
+        this.index = index;
+        this.segment = segment;
+    }
+}
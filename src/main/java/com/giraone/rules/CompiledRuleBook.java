@@ -0,0 +1,569 @@
+package com.giraone.rules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * An immutable rule book created by {@link RuleBook#compile()}.
+ * The rules are kept in arrays and evaluated with plain indexed loops, so no streams or lambdas are created per call.
+ * A compiled rule book can be shared between threads without locking, as long as the rule functions themselves are thread-safe.
+ * @param <F> The type of the input facts.
+ * @param <R> The type of the output result.
+ */
+public final class CompiledRuleBook<F, R> {
+
+    private final CompiledRule<F, R>[] rules;
+    private final List<RuleInfo> ruleInfos;
+    final int sharedConditionCount;
+    final int valueSlotCount;
+    private final RuleMetrics metrics;
+    private final List<Optimization> optimizations;
+
+    CompiledRuleBook(CompiledRule<F, R>[] rules, List<RuleInfo> ruleInfos, int sharedConditionCount, int valueSlotCount,
+                     List<Optimization> optimizations) {
+        this(rules, Collections.unmodifiableList(ruleInfos), sharedConditionCount, valueSlotCount, null, optimizations);
+    }
+
+    private CompiledRuleBook(CompiledRule<F, R>[] rules, List<RuleInfo> ruleInfos, int sharedConditionCount, int valueSlotCount,
+                             RuleMetrics metrics, List<Optimization> optimizations) {
+        this.rules = rules;
+        this.ruleInfos = ruleInfos;
+        this.sharedConditionCount = sharedConditionCount;
+        this.valueSlotCount = valueSlotCount;
+        this.metrics = metrics;
+        this.optimizations = optimizations;
+    }
+
+    /**
+     * Return the infos of all rules, including the grouped ones, ordered by {@link RuleInfo#getIndex()}.
+     * @return An unmodifiable list of rule infos.
+     */
+    public List<RuleInfo> getRuleInfos() {
+        return ruleInfos;
+    }
+
+    /**
+     * Return the changes made by {@link RuleBook#compileOptimized()}. The infos of removed rules are still
+     * returned by {@link #getRuleInfos()}, but these rules are never applied.
+     * @return An unmodifiable list of changes, which is empty, when the rule book was not optimized.
+     */
+    public List<Optimization> getOptimizations() {
+        return optimizations;
+    }
+
+    /**
+     * Return the per-rule metrics of an instrumented rule book.
+     * @return The metrics or null, if the rule book was not created by {@link #instrument()}.
+     */
+    public RuleMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Apply all rules on given facts and define the result
+     * @param facts The input facts.
+     * @param result The output result object, that is changed by the rules.
+     * @return The tupel of input facts and output result.
+     */
+    public Outcome<F, R> applyOnFacts(F facts, R result) {
+        return applyOnFacts(facts, result, null);
+    }
+
+    /**
+     * Apply all rules on given facts and define the result
+     * @param facts The input facts.
+     * @param result The output result object, that is changed by the rules.
+     * @param listener A listener, that is informed about each evaluated clause or null.
+     * @return The tupel of input facts and output result.
+     */
+    public Outcome<F, R> applyOnFacts(F facts, R result, EvaluationListener listener) {
+
+        final Outcome<F, R> outcome = new Outcome<>(facts, result);
+        final EvaluationContext<F, R> context = new EvaluationContext<>(this, listener);
+        context.begin(outcome);
+        evaluate(rules, context);
+        return outcome;
+    }
+
+    /**
+     * Apply all rules on given facts and define the result, re-using the given context.
+     * In the steady state, this does not allocate any objects in the engine, as long as the same facts and result
+     * objects are passed again, e.g. a facts flyweight and a result, that is cleared by the caller.
+     * Otherwise only a new outcome is created.
+     * <p>
+     * <b>The returned outcome is owned by the context and re-used:</b> a later call with the same facts and result
+     * objects returns the same outcome instance, so do not keep it beyond the next call with the context.
+     * @param context The caller-owned evaluation context, see {@link #newContext()}.
+     * @param facts The input facts.
+     * @param result The output result object, that is changed by the rules.
+     * @return The tupel of input facts and output result, which is owned by the context.
+     * @throws IllegalArgumentException when the context was created by another compiled rule book.
+     */
+    public Outcome<F, R> applyOnFacts(EvaluationContext<F, R> context, F facts, R result) {
+
+        if (context.ruleBook != this) {
+            throw new IllegalArgumentException("The context was created by another compiled rule book");
+        }
+        context.reset(facts, result);
+        context.stopped = evaluate(rules, context);
+        return context.outcome;
+    }
+
+    /**
+     * Apply all rules on each of the given facts. The rules and the listener are resolved only once per batch.
+     * @param facts The input facts.
+     * @param resultSupplier A supplier for the output result object of each facts.
+     * @return The tupels of input facts and output result in the order of the input facts.
+     */
+    public List<Outcome<F, R>> applyOnAll(Iterable<? extends F> facts, Supplier<? extends R> resultSupplier) {
+        return applyOnAll(facts, resultSupplier, null);
+    }
+
+    /**
+     * Apply all rules on each of the given facts. The rules and the listener are resolved only once per batch.
+     * @param facts The input facts.
+     * @param resultSupplier A supplier for the output result object of each facts.
+     * @param listener A listener, that is informed about each evaluated clause or null.
+     * @return The tupels of input facts and output result in the order of the input facts.
+     */
+    public List<Outcome<F, R>> applyOnAll(Iterable<? extends F> facts, Supplier<? extends R> resultSupplier,
+                                          EvaluationListener listener) {
+
+        final CompiledRule<F, R>[] rules = this.rules;
+        final EvaluationContext<F, R> context = new EvaluationContext<>(this, listener);
+        final List<Outcome<F, R>> outcomes = facts instanceof Collection
+            ? new ArrayList<>(((Collection<?>) facts).size())
+            : new ArrayList<>();
+        for (F f : facts) {
+            final Outcome<F, R> outcome = new Outcome<>(f, resultSupplier.get());
+            context.begin(outcome);
+            evaluate(rules, context);
+            outcomes.add(outcome);
+        }
+        return outcomes;
+    }
+
+    /**
+     * Apply all rules on each of the given facts. The rules and the listener are resolved only once per batch.
+     * @param facts The input facts.
+     * @param resultSupplier A supplier for the output result object of each facts.
+     * @return The tupels of input facts and output result in the order of the input facts.
+     */
+    public List<Outcome<F, R>> applyOnAll(F[] facts, Supplier<? extends R> resultSupplier) {
+        return applyOnAll(Arrays.asList(facts), resultSupplier, null);
+    }
+
+    /**
+     * Apply all rules on each of the given facts. The rules and the listener are resolved only once per batch.
+     * @param facts The input facts.
+     * @param resultSupplier A supplier for the output result object of each facts.
+     * @param listener A listener, that is informed about each evaluated clause or null.
+     * @return The tupels of input facts and output result in the order of the input facts.
+     */
+    public List<Outcome<F, R>> applyOnAll(F[] facts, Supplier<? extends R> resultSupplier, EvaluationListener listener) {
+        return applyOnAll(Arrays.asList(facts), resultSupplier, listener);
+    }
+
+    /**
+     * Apply all rules on each of the given facts in parallel using a fork/join pool.
+     * The range of facts is split in halves only as long as the halves are stolen by other workers,
+     * so the work is balanced, even when some facts are much more expensive than others.
+     * The rule functions and the result supplier must be thread-safe.
+     * @param facts The input facts. A list without random access is copied once.
+     * @param resultSupplier A supplier for the output result object of each facts.
+     * @param pool The fork/join pool, e.g. {@link ForkJoinPool#commonPool()}.
+     * @return The tupels of input facts and output result in the order of the input facts.
+     */
+    public List<Outcome<F, R>> applyOnAllInParallel(List<? extends F> facts, Supplier<? extends R> resultSupplier, ForkJoinPool pool) {
+        return ParallelEvaluation.applyOnAll(this, rules, facts, resultSupplier, pool);
+    }
+
+    /**
+     * Apply all rules on each of the given facts in parallel using an executor.
+     * The given number of workers take chunks of facts, that get smaller with the remaining work,
+     * so the work is balanced, even when some facts are much more expensive than others.
+     * The rule functions and the result supplier must be thread-safe.
+     * @param facts The input facts. A list without random access is copied once.
+     * @param resultSupplier A supplier for the output result object of each facts.
+     * @param executor The executor, on which the workers are run.
+     * @param parallelism The number of workers.
+     * @return The tupels of input facts and output result in the order of the input facts.
+     */
+    public List<Outcome<F, R>> applyOnAllInParallel(List<? extends F> facts, Supplier<? extends R> resultSupplier,
+                                                    Executor executor, int parallelism) {
+        return ParallelEvaluation.applyOnAll(this, rules, facts, resultSupplier, executor, parallelism);
+    }
+
+    /**
+     * Apply all rules on each of the given facts rule by rule instead of facts by facts.
+     * The facts are split into chunks and the when clause of each rule is tested for all facts of a chunk in one loop,
+     * which uses the caches and the branch prediction better for large batches and rule books.
+     * For each single facts, the rules are applied in the usual order and stopping works as usual,
+     * only the evaluations of different facts are interleaved, so rule functions must not depend on other facts.
+     * Shared conditions, indexes and segments are not used.
+     * @param facts The input facts. A list without random access is copied once.
+     * @param resultSupplier A supplier for the output result object of each facts.
+     * @return The tupels of input facts and output result in the order of the input facts.
+     */
+    public List<Outcome<F, R>> applyOnAllColumnar(List<? extends F> facts, Supplier<? extends R> resultSupplier) {
+        return ColumnarEvaluation.applyOnAll(rules, facts, resultSupplier);
+    }
+
+    /**
+     * Return the default executor of the asynchronous methods, so other asynchronous evaluations, e.g. of the module
+     * <code>rules-engine-flow</code>, use the same one.
+     * On Java 21+ it starts a new virtual thread per task, on older Java versions it is the {@link ForkJoinPool#commonPool()}.
+     * @return The shared default executor.
+     */
+    public static Executor defaultExecutor() {
+        return DefaultExecutor.INSTANCE;
+    }
+
+    /**
+     * Apply all rules on given facts asynchronously using the default executor.
+     * On Java 21+ the default executor runs each evaluation in a new virtual thread, so rule functions with
+     * blocking calls do not pin platform threads. On older Java versions it is the {@link ForkJoinPool#commonPool()},
+     * so rule books with blocking calls should use {@link #applyOnFactsAsync(Object, Object, Executor)} there.
+     * @param facts The input facts.
+     * @param result The output result object, that is changed by the rules.
+     * @return A future for the tupel of input facts and output result.
+     */
+    public CompletableFuture<Outcome<F, R>> applyOnFactsAsync(F facts, R result) {
+        return applyOnFactsAsync(facts, result, DefaultExecutor.INSTANCE);
+    }
+
+    /**
+     * Apply all rules on given facts asynchronously using the given executor.
+     * @param facts The input facts.
+     * @param result The output result object, that is changed by the rules.
+     * @param executor The executor, on which the evaluation is run.
+     * @return A future for the tupel of input facts and output result.
+     */
+    public CompletableFuture<Outcome<F, R>> applyOnFactsAsync(F facts, R result, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> applyOnFacts(facts, result), executor);
+    }
+
+    /**
+     * Apply all rules on each of the given facts asynchronously using the default executor,
+     * see {@link #applyOnFactsAsync(Object, Object)}. Each facts is evaluated in its own task.
+     * @param facts The input facts.
+     * @param resultSupplier A supplier for the output result object of each facts.
+     * @return A future for the tupels of input facts and output result in the order of the input facts.
+     */
+    public CompletableFuture<List<Outcome<F, R>>> applyOnAllAsync(Iterable<? extends F> facts, Supplier<? extends R> resultSupplier) {
+        return applyOnAllAsync(facts, resultSupplier, DefaultExecutor.INSTANCE);
+    }
+
+    /**
+     * Apply all rules on each of the given facts asynchronously using the given executor.
+     * Each facts is evaluated in its own task.
+     * @param facts The input facts.
+     * @param resultSupplier A supplier for the output result object of each facts.
+     * @param executor The executor, on which the evaluations are run.
+     * @return A future for the tupels of input facts and output result in the order of the input facts.
+     */
+    public CompletableFuture<List<Outcome<F, R>>> applyOnAllAsync(Iterable<? extends F> facts, Supplier<? extends R> resultSupplier,
+                                                                  Executor executor) {
+
+        final List<CompletableFuture<Outcome<F, R>>> futures = new ArrayList<>();
+        for (F f : facts) {
+            futures.add(CompletableFuture.supplyAsync(() -> applyOnFacts(f, resultSupplier.get()), executor));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+            .thenApply(ignored -> {
+                final List<Outcome<F, R>> outcomes = new ArrayList<>(futures.size());
+                for (CompletableFuture<Outcome<F, R>> future : futures) {
+                    outcomes.add(future.join());
+                }
+                return outcomes;
+            });
+    }
+
+    /**
+     * Create a new evaluation context for {@link #applyOnFacts(EvaluationContext, Object, Object)}.
+     * @return A new context, that must not be used by more than one thread at a time.
+     */
+    public EvaluationContext<F, R> newContext() {
+        return new EvaluationContext<>(this, null);
+    }
+
+    /**
+     * Create a new evaluation context for {@link #applyOnFacts(EvaluationContext, Object, Object)} with a listener.
+     * @param listener A listener, that is informed about each evaluated clause or null.
+     * @return A new context, that must not be used by more than one thread at a time.
+     */
+    public EvaluationContext<F, R> newContext(EvaluationListener listener) {
+        return new EvaluationContext<>(this, listener);
+    }
+
+    /**
+     * Create a rule book, that evaluates each rule with its own class, so the JIT can inline the rule functions.
+     * See {@link SpecializedRuleBook} for the costs and limitations.
+     * @return A new specialized rule book with the same rules.
+     * @throws IllegalStateException if the class file of the node template cannot be read.
+     */
+    public SpecializedRuleBook<F, R> specialize() {
+        return new SpecializedRuleBook<>(rules, ruleInfos);
+    }
+
+    /**
+     * Create a rule book, that caches the results of this rule book by a key of the facts.
+     * Use it only for pure rule books, whose result depends on nothing else than the key. See {@link CachedRuleBook}.
+     * @param keyExtractor The function, that extracts the key from the facts, e.g. {@link Function#identity()},
+     *                     when the facts implement equals and hashCode.
+     * @param maximumSize The maximum number of cached results.
+     * @param resultSupplier A supplier for the output result object, that is cached.
+     * @param copier A function, that copies a cached result (the first parameter) into the result of the caller (the second parameter).
+     * @return A new cached rule book with an empty cache.
+     */
+    public CachedRuleBook<F, R> cached(Function<? super F, ?> keyExtractor, int maximumSize, Supplier<? extends R> resultSupplier,
+                                       BiConsumer<? super R, ? super R> copier) {
+        return new CachedRuleBook<>(this, keyExtractor, maximumSize, resultSupplier, copier);
+    }
+
+    /**
+     * Create a rule book, that links the rules into a chain of method handles, in which single rules can be replaced.
+     * See {@link LinkedRuleBook} for the limitations.
+     * @return A new linked rule book with the same rules.
+     */
+    public LinkedRuleBook<F, R> link() {
+        return new LinkedRuleBook<>(rules);
+    }
+
+    /**
+     * Create a rule book with the same rules, that counts for each rule, how often its clauses were evaluated and matched,
+     * how often it stopped the processing and how much time was spent in its clauses. See {@link #getMetrics()}.
+     * The counting costs some nanoseconds per clause. Indexes are not used, so each when clause is evaluated and counted.
+     * @return A new instrumented rule book with new metrics.
+     */
+    public CompiledRuleBook<F, R> instrument() {
+
+        final RuleMetrics newMetrics = new RuleMetrics(ruleInfos);
+        return new CompiledRuleBook<>(instrument(rules, newMetrics), ruleInfos, sharedConditionCount, valueSlotCount, newMetrics,
+            optimizations);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private static <F, R> CompiledRule<F, R>[] instrument(CompiledRule<F, R>[] rules, RuleMetrics metrics) {
+
+        @SuppressWarnings("unchecked")
+        final CompiledRule<F, R>[] instrumentedRules = new CompiledRule[rules.length];
+        for (int i = 0; i < rules.length; i++) {
+            final CompiledRule<F, R> rule = rules[i];
+            final RuleCounters counters = metrics.counters(rule.info);
+            instrumentedRules[i] = new CompiledRule<>(rule.info, counters.countWhenFacts(rule.whenFactsFunction), rule.whenFactsSlot, -1,
+                counters.countWhenOutcome(rule.whenOutcomeFunction), counters.countThen(rule.thenFunction),
+                rule.groupedRules != null ? instrument(rule.groupedRules, metrics) : null, null,
+                rule.segment != null ? rule.segment.copy() : null);
+        }
+        return instrumentedRules;
+    }
+
+    /**
+     * Apply all rules of a rule book on the outcome of the context, which must be prepared by begin or reset,
+     * and record the evaluation, when the {@link EvaluationRecorder} is enabled.
+     * @return true, if a rule stopped the processing.
+     */
+    static <F, R> boolean evaluate(CompiledRule<F, R>[] rules, EvaluationContext<F, R> context) {
+
+        final EvaluationRecorder recorder = EvaluationRecorders.INSTANCE;
+        if (!recorder.isEvaluationEnabled()) {
+            return evaluateRules(rules, context);
+        }
+        final Object evaluation = recorder.evaluationStart();
+        final boolean stopped = evaluateRules(rules, context);
+        recorder.evaluationEnd(evaluation, stopped);
+        return stopped;
+    }
+
+    private static <F, R> boolean evaluateRules(CompiledRule<F, R>[] rules, EvaluationContext<F, R> context) {
+
+        final EvaluationListener listener = context.listener;
+        if (listener == null) {
+            return applyOnFacts(rules, context);
+        }
+        listener.onEvaluationStart();
+        final boolean stopped = applyOnFacts(rules, context, listener);
+        listener.onEvaluationEnd(stopped);
+        return stopped;
+    }
+
+    /**
+     * Apply the rules of one level (the top level or a group) in their order. The rules of a segment are applied in the
+     * current order of the segment.
+     * @return true, if a rule stopped the processing.
+     */
+    static <F, R> boolean applyOnFacts(CompiledRule<F, R>[] rules, EvaluationContext<F, R> context) {
+
+        if (context.listener != null) {
+            return applyOnFacts(rules, context, context.listener);
+        }
+        for (int i = 0; i < rules.length; i++) {
+            final CompiledRule<F, R> rule = rules[i];
+            if (rule.index != null) {
+                final int[] candidates = rule.index.candidates(context.outcome.facts);
+                for (int candidate : candidates) {
+                    if (applyThen(rules[candidate], context)) {
+                        return true;
+                    }
+                }
+                i = rule.index.end - 1;
+                continue;
+            }
+            if (rule.segment != null) {
+                if (rule.segment.apply(rules, context)) {
+                    return true;
+                }
+                i = rule.segment.end - 1;
+                continue;
+            }
+            if (applyRule(rule, context)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Apply a single rule.
+     * @return true, if the rule stopped the processing.
+     */
+    static <F, R> boolean applyRule(CompiledRule<F, R> rule, EvaluationContext<F, R> context) {
+
+        if (rule.whenFactsFunction != null && !context.testFacts(rule)) {
+            return false;
+        }
+        return applyThen(rule, context);
+    }
+
+    /**
+     * Test the when clauses of a single rule without applying its then clause.
+     * @return true, if the rule must be applied.
+     */
+    static <F, R> boolean testWhen(CompiledRule<F, R> rule, EvaluationContext<F, R> context) {
+
+        return (rule.whenFactsFunction == null || context.testFacts(rule))
+            && (rule.whenOutcomeFunction == null || rule.whenOutcomeFunction.test(context.outcome.result));
+    }
+
+    /**
+     * Apply a rule, whose when clause is true.
+     * @return true, if the rule stopped the processing.
+     */
+    private static <F, R> boolean applyThen(CompiledRule<F, R> rule, EvaluationContext<F, R> context) {
+
+        if (rule.whenOutcomeFunction != null && !rule.whenOutcomeFunction.test(context.outcome.result)) {
+            return false;
+        }
+        return applyThenClause(rule, context);
+    }
+
+    /**
+     * Apply the then clause or the grouped rules of a rule, whose when clauses are true.
+     * @return true, if the rule stopped the processing.
+     */
+    static <F, R> boolean applyThenClause(CompiledRule<F, R> rule, EvaluationContext<F, R> context) {
+
+        if (rule.groupedRules != null) {
+            final EvaluationRecorder recorder = EvaluationRecorders.INSTANCE;
+            if (!recorder.isGroupEnabled()) {
+                return applyOnFacts(rule.groupedRules, context);
+            }
+            final Object group = recorder.groupEnter(rule.info);
+            final boolean stopped = applyOnFacts(rule.groupedRules, context);
+            recorder.groupExit(group, rule.info, stopped);
+            return stopped;
+        }
+        return rule.thenFunction.test(context.outcome);
+    }
+
+    /**
+     * Apply the rules of one level (the top level or a group) in their order and inform the listener.
+     * Rules, that are skipped by an index, are not reported. The rules of a segment are reported in their current order.
+     * @return true, if a rule stopped the processing.
+     */
+    private static <F, R> boolean applyOnFacts(CompiledRule<F, R>[] rules, EvaluationContext<F, R> context, EvaluationListener listener) {
+
+        for (int i = 0; i < rules.length; i++) {
+            final CompiledRule<F, R> rule = rules[i];
+            if (rule.index != null) {
+                final int[] candidates = rule.index.candidates(context.outcome.facts);
+                for (int candidate : candidates) {
+                    listener.onWhenFacts(rules[candidate].info, true);
+                    if (applyThen(rules[candidate], context, listener)) {
+                        return true;
+                    }
+                }
+                i = rule.index.end - 1;
+                continue;
+            }
+            if (rule.segment != null) {
+                if (rule.segment.apply(rules, context, listener)) {
+                    return true;
+                }
+                i = rule.segment.end - 1;
+                continue;
+            }
+            if (applyRule(rule, context, listener)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Apply a single rule and inform the listener.
+     * @return true, if the rule stopped the processing.
+     */
+    static <F, R> boolean applyRule(CompiledRule<F, R> rule, EvaluationContext<F, R> context, EvaluationListener listener) {
+
+        if (rule.whenFactsFunction != null) {
+            final boolean value = context.testFacts(rule);
+            listener.onWhenFacts(rule.info, value);
+            if (!value) {
+                return false;
+            }
+        }
+        return applyThen(rule, context, listener);
+    }
+
+    /**
+     * Apply a rule, whose when clause is true, and inform the listener.
+     * @return true, if the rule stopped the processing.
+     */
+    private static <F, R> boolean applyThen(CompiledRule<F, R> rule, EvaluationContext<F, R> context, EvaluationListener listener) {
+
+        if (rule.whenOutcomeFunction != null) {
+            final boolean value = rule.whenOutcomeFunction.test(context.outcome.result);
+            listener.onWhenOutcome(rule.info, value);
+            if (!value) {
+                return false;
+            }
+        }
+        if (rule.groupedRules != null) {
+            final EvaluationRecorder recorder = EvaluationRecorders.INSTANCE;
+            final boolean recorded = recorder.isGroupEnabled();
+            final Object group = recorded ? recorder.groupEnter(rule.info) : null;
+            listener.onGroupEnter(rule.info);
+            final boolean stopped = applyOnFacts(rule.groupedRules, context, listener);
+            listener.onGroupExit(rule.info, stopped);
+            if (recorded) {
+                recorder.groupExit(group, rule.info, stopped);
+            }
+            return stopped;
+        }
+        final boolean stopped = rule.thenFunction.test(context.outcome);
+        listener.onThen(rule.info, stopped);
+        return stopped;
+    }
+}
@@ -0,0 +1,28 @@
+package com.giraone.rules;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The default executor for the asynchronous methods of {@link CompiledRuleBook}.
+ * On Java 21+ it is an executor, that starts a new virtual thread per task, so blocking rule functions
+ * do not pin platform threads. On older Java versions it is the {@link ForkJoinPool#commonPool()}.
+ * The executor is looked up by reflection, because the library is compiled for Java 8.
+ */
+final class DefaultExecutor {
+
+    static final Executor INSTANCE = create();
+
+    private DefaultExecutor() {
+    }
+
+    private static Executor create() {
+
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return ForkJoinPool.commonPool();
+        }
+    }
+}
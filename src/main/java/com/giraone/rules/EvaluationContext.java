@@ -0,0 +1,115 @@
+package com.giraone.rules;
+
+import java.util.Arrays;
+
+/**
+ * A re-usable, caller-owned context for {@link CompiledRuleBook#applyOnFacts(EvaluationContext, Object, Object)}.
+ * The context holds the stop flag, the {@link Outcome}, the values of shared conditions and the primitive values extracted by
+ * {@link ValueCondition}s, which are reset before each evaluation,
+ * so evaluating facts with a context does not allocate any objects in the engine.
+ * Only when the facts or the result are other objects than in the last evaluation, a new outcome is created,
+ * so re-use e.g. a facts flyweight and a result, that is cleared by the caller, to avoid any allocation.
+ * <p>
+ * A context is not thread-safe. Use one context per thread, e.g. a thread-confined or pooled one.
+ * The returned outcome is re-used by the next evaluation with the same facts and result objects.
+ * Its fields are final, so it is never changed by the context, but its result may be changed by the next evaluation.
+ *
+ * @param <F> The input facts class.
+ * @param <R> The output result class.
+ */
+public final class EvaluationContext<F, R> {
+
+    final CompiledRuleBook<F, R> ruleBook;
+    final EvaluationListener listener;
+    Outcome<F, R> outcome;
+    boolean stopped;
+    private Outcome<F, R> reusableOutcome;
+    // The values of the shared conditions are valid for the current evaluation, when their epoch is the current one.
+    private final int[] sharedConditionEpochs;
+    private final boolean[] sharedConditionValues;
+    // The extracted values are valid for the current evaluation, when their epoch is the current one.
+    private final int[] valueEpochs;
+    private final long[] values;
+    private int epoch;
+
+    EvaluationContext(CompiledRuleBook<F, R> ruleBook, EvaluationListener listener) {
+        this.ruleBook = ruleBook;
+        this.listener = listener;
+        this.sharedConditionEpochs = new int[ruleBook.sharedConditionCount];
+        this.sharedConditionValues = new boolean[ruleBook.sharedConditionCount];
+        this.valueEpochs = new int[ruleBook.valueSlotCount];
+        this.values = new long[ruleBook.valueSlotCount];
+    }
+
+    /**
+     * Return the outcome of the last evaluation.
+     * @return The outcome, that is re-used by the next evaluation with the same facts and result objects.
+     */
+    public Outcome<F, R> getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Return, whether the last evaluation was stopped by a rule using thenStopWith.
+     * @return true, if a rule stopped the processing.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Prepare the next evaluation with the context's own outcome. The outcome is immutable, so it is re-used,
+     * when the facts and the result are the same objects as before, and replaced otherwise.
+     */
+    void reset(F facts, R result) {
+
+        if (reusableOutcome == null || reusableOutcome.facts != facts || reusableOutcome.result != result) {
+            reusableOutcome = new Outcome<>(facts, result);
+        }
+        begin(reusableOutcome);
+    }
+
+    /**
+     * Prepare the next evaluation with the given outcome.
+     */
+    void begin(Outcome<F, R> outcome) {
+
+        this.outcome = outcome;
+        this.stopped = false;
+        if (++epoch == 0) {
+            Arrays.fill(sharedConditionEpochs, 0);
+            Arrays.fill(valueEpochs, 0);
+            epoch = 1;
+        }
+    }
+
+    /**
+     * Evaluate the when clause of a rule. A shared condition is evaluated only once per evaluation
+     * and the value of a value condition is extracted only once per evaluation.
+     */
+    boolean testFacts(CompiledRule<F, R> rule) {
+
+        final int slot = rule.whenFactsSlot;
+        if (slot < 0) {
+            return rule.whenFactsValueSlot < 0 ? rule.whenFactsFunction.test(outcome.facts) : testValue(rule);
+        }
+        if (sharedConditionEpochs[slot] == epoch) {
+            return sharedConditionValues[slot];
+        }
+        final boolean value = rule.whenFactsFunction.test(outcome.facts);
+        sharedConditionValues[slot] = value;
+        sharedConditionEpochs[slot] = epoch;
+        return value;
+    }
+
+    private boolean testValue(CompiledRule<F, R> rule) {
+
+        final ValueCondition<F> condition = (ValueCondition<F>) rule.whenFactsFunction;
+        final int slot = rule.whenFactsValueSlot;
+        if (valueEpochs[slot] != epoch) {
+            values[slot] = condition.extract(outcome.facts);
+            valueEpochs[slot] = epoch;
+        }
+        return condition.testValue(values[slot]);
+    }
+}
@@ -0,0 +1,91 @@
+package com.giraone.rules;
+
+import java.util.function.BiConsumer;
+
+/**
+ * A listener, that is informed about the single steps, when a {@link CompiledRuleBook} is applied on facts.
+ * Rules are identified by their {@link RuleInfo}. Descriptions are only resolved, when the listener asks for them.
+ * When no listener is passed, the compiled rule book does not dispatch anything.
+ * All methods have an empty default implementation.
+ */
+public interface EvaluationListener {
+
+    /**
+     * Called before the rules are applied on the facts.
+     */
+    default void onEvaluationStart() {
+    }
+
+    /**
+     * Called after the rules were applied on the facts. Not called, when a rule throws an exception.
+     * @param stopped true, if a rule stopped the processing.
+     */
+    default void onEvaluationEnd(boolean stopped) {
+    }
+
+    /**
+     * Called before the grouped rules of a rule are applied, i.e. after its when clauses were true.
+     * @param group The rule with the grouped rules.
+     */
+    default void onGroupEnter(RuleInfo group) {
+    }
+
+    /**
+     * Called after the grouped rules of a rule were applied. Not called, when a rule throws an exception.
+     * @param group The rule with the grouped rules.
+     * @param stopped true, if a grouped rule stopped the processing.
+     */
+    default void onGroupExit(RuleInfo group, boolean stopped) {
+    }
+
+    /**
+     * Called after the when clause of a rule was evaluated. Not called, when the rule has no when clause.
+     * @param rule The rule.
+     * @param value The result of the when clause.
+     */
+    default void onWhenFacts(RuleInfo rule, boolean value) {
+    }
+
+    /**
+     * Called after the and-when-outcome clause of a rule was evaluated. Not called, when the rule has no such clause.
+     * @param rule The rule.
+     * @param value The result of the and-when-outcome clause.
+     */
+    default void onWhenOutcome(RuleInfo rule, boolean value) {
+    }
+
+    /**
+     * Called after the then clause of a rule was applied. Not called for rules with grouped rules.
+     * @param rule The rule.
+     * @param stopped true, if the rule stopped the processing.
+     */
+    default void onThen(RuleInfo rule, boolean stopped) {
+    }
+
+    /**
+     * Create a listener, that calls the logging functions known from {@link RuleBook#applyOnFacts(Object, Object, BiConsumer, BiConsumer)}
+     * with the same descriptions.
+     * @param logWhen A logging function that is called with the description of the WHEN clause and the resulting value (true/false) of the WHEN clause.
+     * @param logThen A logging function that is called with the description of the THEN clause and the resulting value (true/false) of the THEN clause.
+     * @return The listener.
+     */
+    static EvaluationListener of(BiConsumer<String, Boolean> logWhen, BiConsumer<String, Boolean> logThen) {
+
+        return new EvaluationListener() {
+            @Override
+            public void onWhenFacts(RuleInfo rule, boolean value) {
+                logWhen.accept(rule.getQualifiedWhenFactsDescription(), value);
+            }
+
+            @Override
+            public void onWhenOutcome(RuleInfo rule, boolean value) {
+                logWhen.accept(rule.getWhenOutcomeDescription(), value);
+            }
+
+            @Override
+            public void onThen(RuleInfo rule, boolean stopped) {
+                logThen.accept(rule.getThenDescription(), stopped);
+            }
+        };
+    }
+}
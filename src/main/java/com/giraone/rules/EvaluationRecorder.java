@@ -0,0 +1,58 @@
+package com.giraone.rules;
+
+import java.util.ServiceLoader;
+
+/**
+ * A recorder for the evaluations of rule books and their applied groups, e.g. as JDK Flight Recorder events
+ * by the separate module <code>rules-engine-jfr</code>.
+ * <p>
+ * Unlike an {@link EvaluationListener}, a recorder is not passed to an evaluation. The first recorder found by the
+ * {@link ServiceLoader} is used for all evaluations of facts by a {@link RuleBook}, {@link CompiledRuleBook} (including
+ * the parallel ones), {@link SpecializedRuleBook} or {@link LinkedRuleBook}. Only compiled rule books record the applied
+ * groups, too. The columnar evaluation of a batch interleaves the facts, so it is not recorded.
+ * Without a recorder, nothing is recorded. The engine asks {@link #isEvaluationEnabled()} before each evaluation and
+ * {@link #isGroupEnabled()} before each applied group and calls the other methods only, when they return true,
+ * so these checks must be cheap, e.g. a cached flag. A recorder is used by many threads, so it must be thread-safe.
+ */
+public interface EvaluationRecorder {
+
+    /**
+     * Return, whether the next evaluation is recorded.
+     * @return true, if {@link #evaluationStart()} and {@link #evaluationEnd(Object, boolean)} are called.
+     */
+    boolean isEvaluationEnabled();
+
+    /**
+     * Called, when the evaluation of facts starts.
+     * @return A token for the evaluation, e.g. a started event, that is passed to {@link #evaluationEnd(Object, boolean)}.
+     */
+    Object evaluationStart();
+
+    /**
+     * Called, when the evaluation of facts ended without an exception.
+     * @param token The token returned by {@link #evaluationStart()}.
+     * @param stopped true, if a rule stopped the processing.
+     */
+    void evaluationEnd(Object token, boolean stopped);
+
+    /**
+     * Return, whether the next applied group is recorded.
+     * @return true, if {@link #groupEnter(RuleInfo)} and {@link #groupExit(Object, RuleInfo, boolean)} are called.
+     */
+    boolean isGroupEnabled();
+
+    /**
+     * Called, before the grouped rules of a rule are applied.
+     * @param group The rule, that defines the group.
+     * @return A token for the group, e.g. a started event, that is passed to {@link #groupExit(Object, RuleInfo, boolean)}.
+     */
+    Object groupEnter(RuleInfo group);
+
+    /**
+     * Called, after the grouped rules of a rule were applied without an exception.
+     * @param token The token returned by {@link #groupEnter(RuleInfo)}.
+     * @param group The rule, that defines the group.
+     * @param stopped true, if a grouped rule stopped the processing.
+     */
+    void groupExit(Object token, RuleInfo group, boolean stopped);
+}
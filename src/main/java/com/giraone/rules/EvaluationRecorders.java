@@ -0,0 +1,60 @@
+package com.giraone.rules;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * The {@link EvaluationRecorder} of the engine. It is looked up once, so the JIT can inline the enabled checks
+ * and the checks of {@link #NONE} cost nothing.
+ */
+final class EvaluationRecorders {
+
+    /** The recorder, when no recorder is found. Nothing is ever enabled. */
+    static final EvaluationRecorder NONE = new EvaluationRecorder() {
+        @Override
+        public boolean isEvaluationEnabled() {
+            return false;
+        }
+
+        @Override
+        public Object evaluationStart() {
+            return null;
+        }
+
+        @Override
+        public void evaluationEnd(Object token, boolean stopped) {
+        }
+
+        @Override
+        public boolean isGroupEnabled() {
+            return false;
+        }
+
+        @Override
+        public Object groupEnter(RuleInfo group) {
+            return null;
+        }
+
+        @Override
+        public void groupExit(Object token, RuleInfo group, boolean stopped) {
+        }
+    };
+
+    static final EvaluationRecorder INSTANCE = load();
+
+    private EvaluationRecorders() {
+    }
+
+    private static EvaluationRecorder load() {
+
+        try {
+            final Iterator<EvaluationRecorder> recorders =
+                ServiceLoader.load(EvaluationRecorder.class, EvaluationRecorder.class.getClassLoader()).iterator();
+            return recorders.hasNext() ? recorders.next() : NONE;
+        } catch (ServiceConfigurationError | LinkageError e) {
+            // e.g. a recorder, that needs a newer Java version
+            return NONE;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.giraone.rules;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A hash index over a run of rules defined with {@link Rule#whenFactsKey(Function, Object)} and the same key extractor.
+ * The key is extracted once and only the rules with this key are visited in their original order.
+ *
+ * @param <F> The input facts class.
+ */
+final class KeyIndex<F> extends RuleIndex<F> {
+
+    private final Function<F, ?> keyExtractor;
+    private final Map<Object, int[]> candidatesByKey;
+
+    KeyIndex(Function<F, ?> keyExtractor, Map<Object, int[]> candidatesByKey, int end) {
+        super(end);
+        this.keyExtractor = keyExtractor;
+        this.candidatesByKey = candidatesByKey;
+    }
+
+    @Override
+    int[] candidates(F facts) {
+        return candidatesByKey.getOrDefault(keyExtractor.apply(facts), NO_CANDIDATES);
+    }
+}
@@ -0,0 +1,231 @@
+package com.giraone.rules;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A rule book created by {@link CompiledRuleBook#link()}, that links the rules into a chain of method handles.
+ * <p>
+ * Each rule is a {@link MutableCallSite}, whose target tests the conditions of the rule with
+ * {@link MethodHandles#guardWithTest(MethodHandle, MethodHandle, MethodHandle)} and applies the rule.
+ * The rules of one level are chained with guardWithTest, so the chain stops at the first rule, that stops the processing.
+ * <p>
+ * A single rule can be replaced at runtime with {@link #replaceRule(String, Rule)}. Only the call site of this rule is
+ * relinked, so the JIT has to deoptimize only the code depending on this call site and the other rules stay warm.
+ * Shared conditions and indexes are not used, each condition is evaluated directly. Listeners are not supported,
+ * an {@link EvaluationRecorder} records only the evaluations, not the groups.
+ * A linked rule book can be shared between threads without locking, as long as the rule functions themselves are thread-safe.
+ *
+ * @param <F> The type of the input facts.
+ * @param <R> The type of the output result.
+ */
+public final class LinkedRuleBook<F, R> {
+
+    /** The maximum number of rules, that are chained directly. Longer levels are split into chains of this length. */
+    static final int CHAIN_LENGTH = 32;
+
+    private static final MethodType RULE_TYPE = MethodType.methodType(boolean.class, Outcome.class);
+    private static final MethodHandle PREDICATE_TEST;
+    private static final MethodHandle FACTS;
+    private static final MethodHandle RESULT;
+    private static final MethodHandle APPLY_CHAINS;
+    private static final MethodHandle TRUE = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, true), 0, Outcome.class);
+    private static final MethodHandle FALSE = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, false), 0, Outcome.class);
+
+    static {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            PREDICATE_TEST = lookup.findVirtual(Predicate.class, "test", MethodType.methodType(boolean.class, Object.class));
+            FACTS = lookup.findGetter(Outcome.class, "facts", Object.class);
+            RESULT = lookup.findGetter(Outcome.class, "result", Object.class);
+            APPLY_CHAINS = lookup.findStatic(LinkedRuleBook.class, "applyChains",
+                MethodType.methodType(boolean.class, MethodHandle[].class, Outcome.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final MethodHandle root;
+    // the links of all rules by their id, only changed and read within synchronized methods
+    private final Map<String, Link<F, R>> links = new HashMap<>();
+    // the index for the next grouped rule of a replacement, above the indexes of all rules, that were ever linked
+    private int nextIndex;
+
+    LinkedRuleBook(CompiledRule<F, R>[] rules) {
+        this.root = linkLevel(rules, links);
+        this.nextIndex = nextIndex(links, 0);
+    }
+
+    /**
+     * Apply all rules on given facts and define the result
+     * @param facts The input facts.
+     * @param result The output result object, that is changed by the rules.
+     * @return The tupel of input facts and output result.
+     */
+    public Outcome<F, R> applyOnFacts(F facts, R result) {
+
+        final Outcome<F, R> outcome = new Outcome<>(facts, result);
+        final EvaluationRecorder recorder = EvaluationRecorders.INSTANCE;
+        if (!recorder.isEvaluationEnabled()) {
+            applyOnFacts(root, outcome);
+            return outcome;
+        }
+        final Object evaluation = recorder.evaluationStart();
+        recorder.evaluationEnd(evaluation, applyOnFacts(root, outcome));
+        return outcome;
+    }
+
+    /**
+     * Return the infos of all rules, that are currently linked, ordered by their index.
+     * @return A new list of the rule infos.
+     */
+    public synchronized List<RuleInfo> getRuleInfos() {
+
+        final List<RuleInfo> ruleInfos = new ArrayList<>(links.size());
+        links.values().forEach(link -> ruleInfos.add(link.rule.info));
+        ruleInfos.sort(Comparator.comparingInt(RuleInfo::getIndex));
+        return ruleInfos;
+    }
+
+    /**
+     * Replace a rule. The new rule keeps the id and index of the replaced rule and is used by all evaluations, that start afterwards.
+     * When the replaced rule is a group, the ids of its grouped rules are no longer valid.
+     * When the new rule is a group, its grouped rules get ids like the ones of a compiled rule book and can be replaced, too.
+     * They get new indexes above the indexes of all rules, that were linked before, so the indexes stay unique, but have gaps.
+     * @param id The id of the rule to replace, see {@link RuleInfo#getId()}.
+     * @param rule The new rule.
+     * @throws IllegalArgumentException if there is no rule with the id.
+     * @throws IllegalStateException if the new rule is incomplete or its grouped rules have ids, that are already used.
+     */
+    public synchronized void replaceRule(String id, Rule<F, R> rule) {
+
+        final Link<F, R> replaced = links.get(id);
+        if (replaced == null) {
+            throw new IllegalArgumentException("Rule id \"" + id + "\" is unknown");
+        }
+        final CompiledRule<F, R> compiledRule = new RuleBookCompiler<F, R>().compileReplacement(rule, replaced.rule.info, nextIndex);
+        final Map<String, Link<F, R>> groupedLinks = new HashMap<>();
+        final MethodHandle target = linkRule(compiledRule, groupedLinks);
+        final List<String> replacedIds = new ArrayList<>();
+        collectGroupedIds(replaced.rule, replacedIds);
+        for (String groupedId : groupedLinks.keySet()) {
+            if (links.containsKey(groupedId) && !replacedIds.contains(groupedId)) {
+                throw new IllegalStateException("Rule id \"" + groupedId + "\" is not unique");
+            }
+        }
+        replacedIds.forEach(links::remove);
+        links.putAll(groupedLinks);
+        links.put(id, new Link<>(replaced.site, compiledRule));
+        nextIndex = nextIndex(groupedLinks, nextIndex);
+        replaced.site.setTarget(target);
+        MutableCallSite.syncAll(new MutableCallSite[] { replaced.site });
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Link the rules of one level (the top level or a group) into chains of their call sites.
+     */
+    private static <F, R> MethodHandle linkLevel(CompiledRule<F, R>[] rules, Map<String, Link<F, R>> links) {
+
+        final MethodHandle[] chains = new MethodHandle[(rules.length + CHAIN_LENGTH - 1) / CHAIN_LENGTH];
+        for (int c = 0; c < chains.length; c++) {
+            MethodHandle chain = FALSE;
+            for (int i = Math.min(rules.length, (c + 1) * CHAIN_LENGTH) - 1; i >= c * CHAIN_LENGTH; i--) {
+                final MutableCallSite site = new MutableCallSite(linkRule(rules[i], links));
+                links.put(rules[i].info.getId(), new Link<>(site, rules[i]));
+                chain = MethodHandles.guardWithTest(site.dynamicInvoker(), TRUE, chain);
+            }
+            chains[c] = chain;
+        }
+        if (chains.length == 0) {
+            return FALSE;
+        }
+        return chains.length == 1 ? chains[0] : APPLY_CHAINS.bindTo(chains);
+    }
+
+    /**
+     * Link a single rule, so it returns true, if the rule stopped the processing.
+     */
+    private static <F, R> MethodHandle linkRule(CompiledRule<F, R> rule, Map<String, Link<F, R>> links) {
+
+        MethodHandle target = rule.groupedRules != null
+            ? linkLevel(rule.groupedRules, links)
+            : PREDICATE_TEST.bindTo(rule.thenFunction).asType(RULE_TYPE);
+        if (rule.whenOutcomeFunction != null) {
+            target = MethodHandles.guardWithTest(
+                MethodHandles.filterArguments(PREDICATE_TEST.bindTo(rule.whenOutcomeFunction), 0, RESULT), target, FALSE);
+        }
+        if (rule.whenFactsFunction != null) {
+            target = MethodHandles.guardWithTest(
+                MethodHandles.filterArguments(PREDICATE_TEST.bindTo(rule.whenFactsFunction), 0, FACTS), target, FALSE);
+        }
+        return target;
+    }
+
+    /**
+     * Return the index after the highest index of the linked rules, but at least the given index.
+     */
+    private static int nextIndex(Map<String, ? extends Link<?, ?>> links, int minimum) {
+
+        int next = minimum;
+        for (Link<?, ?> link : links.values()) {
+            next = Math.max(next, link.rule.info.getIndex() + 1);
+        }
+        return next;
+    }
+
+    private static void collectGroupedIds(CompiledRule<?, ?> rule, List<String> ids) {
+
+        if (rule.groupedRules != null) {
+            for (CompiledRule<?, ?> groupedRule : rule.groupedRules) {
+                ids.add(groupedRule.info.getId());
+                collectGroupedIds(groupedRule, ids);
+            }
+        }
+    }
+
+    /**
+     * Apply the rules linked to a method handle.
+     * @return true, if a rule stopped the processing.
+     */
+    private static boolean applyOnFacts(MethodHandle rules, Outcome<?, ?> outcome) {
+
+        try {
+            return (boolean) rules.invokeExact(outcome);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean applyChains(MethodHandle[] chains, Outcome<?, ?> outcome) throws Throwable {
+
+        for (MethodHandle chain : chains) {
+            if ((boolean) chain.invokeExact(outcome)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Link<F, R> {
+
+        final MutableCallSite site;
+        final CompiledRule<F, R> rule;
+
+        Link(MutableCallSite site, CompiledRule<F, R> rule) {
+            this.site = site;
+            this.rule = rule;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.giraone.rules;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A file of fixed-width records, that is mapped into memory and evaluated record by record through a flyweight,
+ * so no facts object is created per record. See {@link MappedRecord} for the definition of the flyweight.
+ * <p>
+ * A {@link MappedByteBuffer} is limited to 2 GB, so large files are mapped in regions of whole records.
+ * The mapping is read-only and stays valid, until the mapped facts are garbage collected, there is no need to close them.
+ * The records can be evaluated by more than one thread at the same time, e.g. each thread with its own range of records.
+ *
+ * @param <F> The flyweight facts class.
+ */
+public final class MappedFacts<F extends MappedRecord> {
+
+    /** The default maximum size of a mapped region. */
+    static final int REGION_SIZE = 1 << 30;
+
+    private final ByteBuffer[] regions;
+    private final int recordLength;
+    private final int recordsPerRegion;
+    private final long size;
+    private final Supplier<? extends F> flyweightFactory;
+
+    private MappedFacts(ByteBuffer[] regions, int recordLength, int recordsPerRegion, long size, Supplier<? extends F> flyweightFactory) {
+        this.regions = regions;
+        this.recordLength = recordLength;
+        this.recordsPerRegion = recordsPerRegion;
+        this.size = size;
+        this.flyweightFactory = flyweightFactory;
+    }
+
+    /**
+     * Map a file of fixed-width records in big-endian byte order.
+     * @param file The file, whose size must be a multiple of the record length.
+     * @param recordLength The length of each record in bytes, including a line separator, if any.
+     * @param flyweightFactory Creates a flyweight, e.g. <code>Animal::new</code>. One flyweight is created per iteration.
+     * @param <F> The flyweight facts class.
+     * @return The mapped facts.
+     * @throws IOException if the file cannot be read.
+     */
+    public static <F extends MappedRecord> MappedFacts<F> map(Path file, int recordLength, Supplier<? extends F> flyweightFactory)
+        throws IOException {
+        return map(file, recordLength, ByteOrder.BIG_ENDIAN, flyweightFactory);
+    }
+
+    /**
+     * Map a file of fixed-width records.
+     * @param file The file, whose size must be a multiple of the record length.
+     * @param recordLength The length of each record in bytes, including a line separator, if any.
+     * @param byteOrder The byte order of the binary fields.
+     * @param flyweightFactory Creates a flyweight, e.g. <code>Animal::new</code>. One flyweight is created per iteration.
+     * @param <F> The flyweight facts class.
+     * @return The mapped facts.
+     * @throws IOException if the file cannot be read.
+     */
+    public static <F extends MappedRecord> MappedFacts<F> map(Path file, int recordLength, ByteOrder byteOrder,
+                                                             Supplier<? extends F> flyweightFactory) throws IOException {
+        return map(file, recordLength, byteOrder, flyweightFactory, REGION_SIZE);
+    }
+
+    static <F extends MappedRecord> MappedFacts<F> map(Path file, int recordLength, ByteOrder byteOrder,
+                                                      Supplier<? extends F> flyweightFactory, int regionSize) throws IOException {
+
+        if (recordLength <= 0) {
+            throw new IllegalArgumentException("Record length must be positive, but was " + recordLength);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            if (fileSize % recordLength != 0) {
+                throw new IllegalArgumentException("Size " + fileSize + " of file " + file + " is not a multiple of the record length " + recordLength);
+            }
+            final long size = fileSize / recordLength;
+            final int recordsPerRegion = Math.max(1, regionSize / recordLength);
+            final ByteBuffer[] regions = new ByteBuffer[(int) ((size + recordsPerRegion - 1) / recordsPerRegion)];
+            for (int r = 0; r < regions.length; r++) {
+                final long start = (long) r * recordsPerRegion * recordLength;
+                regions[r] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(fileSize - start, (long) recordsPerRegion * recordLength))
+                    .order(byteOrder);
+            }
+            return new MappedFacts<>(regions, recordLength, recordsPerRegion, size, flyweightFactory);
+        }
+    }
+
+    /**
+     * Return the number of records.
+     * @return The number of records in the file.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Pass each record to an action. The action gets the same flyweight for all records, moved to the current record.
+     * @param action The action.
+     */
+    public void forEach(Consumer<? super F> action) {
+        forEach(0, size, action);
+    }
+
+    /**
+     * Pass each record of a range to an action. The action gets the same flyweight for all records, moved to the current record.
+     * Different ranges can be processed by different threads at the same time.
+     * @param from The number of the first record (inclusive).
+     * @param to The number of the last record (exclusive).
+     * @param action The action.
+     */
+    public void forEach(long from, long to, Consumer<? super F> action) {
+
+        if (from < 0 || from > to || to > size) {
+            throw new IndexOutOfBoundsException("Records " + from + " to " + to + " are not within the " + size + " records");
+        }
+        final F flyweight = flyweightFactory.get();
+        long recordNumber = from;
+        while (recordNumber < to) {
+            final int region = (int) (recordNumber / recordsPerRegion);
+            final ByteBuffer buffer = regions[region];
+            final long regionEnd = Math.min(to, (long) (region + 1) * recordsPerRegion);
+            int position = (int) (recordNumber - (long) region * recordsPerRegion) * recordLength;
+            for (; recordNumber < regionEnd; recordNumber++, position += recordLength) {
+                flyweight.moveTo(buffer, position, recordNumber);
+                action.accept(flyweight);
+            }
+        }
+    }
+
+    /**
+     * Apply all rules of a compiled rule book on each record. The rule book evaluates the records with one re-used
+     * {@link EvaluationContext}, so no facts object is created per record. A new result is supplied for each record,
+     * so an outcome is created per record, too. Use {@link #applyOnAll(CompiledRuleBook, Object, Consumer, Consumer)}
+     * to re-use the result and the outcome.
+     * The consumer gets the outcome of each record, whose facts are only valid during the call.
+     * @param ruleBook The compiled rule book.
+     * @param resultSupplier A supplier for the output result object of each record.
+     * @param consumer The consumer of the outcomes, e.g. writing the results to another file.
+     * @param <R> The output result class.
+     */
+    public <R> void applyOnAll(CompiledRuleBook<F, R> ruleBook, Supplier<? extends R> resultSupplier, Consumer<? super Outcome<F, R>> consumer) {
+
+        final EvaluationContext<F, R> context = ruleBook.newContext();
+        forEach(flyweight -> consumer.accept(ruleBook.applyOnFacts(context, flyweight, resultSupplier.get())));
+    }
+
+    /**
+     * Apply all rules of a compiled rule book on each record with one re-used result. The rule book evaluates the records
+     * with one re-used {@link EvaluationContext}, whose outcome is re-used, too, so neither a facts object nor a result
+     * nor an outcome is created per record.
+     * The consumer gets the same outcome for each record, whose facts and result are only valid during the call.
+     * @param ruleBook The compiled rule book.
+     * @param result The output result object, that is used for all records.
+     * @param resultReset Clears the result before each record, e.g. <code>Result::clear</code>.
+     * @param consumer The consumer of the outcomes, e.g. writing the results to another file.
+     * @param <R> The output result class.
+     */
+    public <R> void applyOnAll(CompiledRuleBook<F, R> ruleBook, R result, Consumer<? super R> resultReset,
+                               Consumer<? super Outcome<F, R>> consumer) {
+
+        final EvaluationContext<F, R> context = ruleBook.newContext();
+        forEach(flyweight -> {
+            resultReset.accept(result);
+            consumer.accept(ruleBook.applyOnFacts(context, flyweight, result));
+        });
+    }
+}
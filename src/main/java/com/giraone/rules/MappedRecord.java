@@ -0,0 +1,144 @@
+package com.giraone.rules;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * The base class of a flyweight facts class, that reads its fields straight from a record of a {@link MappedFacts} file.
+ * A subclass defines the accessors of its fields with the offsets of the fields within the record, e.g.
+ * <pre>
+ * class Animal extends MappedRecord {
+ *     boolean isMammal() { return getByte(10) == 'Y'; }
+ *     long weightInKg() { return getAsciiLong(11, 8); }
+ * }
+ * </pre>
+ * A flyweight is moved from record to record, so it must not be kept after the evaluation of its record,
+ * e.g. in the result. Copy the values instead.
+ */
+public abstract class MappedRecord {
+
+    private ByteBuffer buffer;
+    private int position;
+    private long recordNumber;
+
+    /**
+     * Move the flyweight to a record.
+     */
+    final void moveTo(ByteBuffer buffer, int position, long recordNumber) {
+        this.buffer = buffer;
+        this.position = position;
+        this.recordNumber = recordNumber;
+    }
+
+    /**
+     * Return the number of the current record.
+     * @return The number of the record within the file, starting with 0.
+     */
+    public final long getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * Read a byte of the current record.
+     * @param offset The offset of the field within the record.
+     * @return The value.
+     */
+    protected final byte getByte(int offset) {
+        return buffer.get(position + offset);
+    }
+
+    /**
+     * Read a binary short of the current record in the byte order of the file.
+     * @param offset The offset of the field within the record.
+     * @return The value.
+     */
+    protected final short getShort(int offset) {
+        return buffer.getShort(position + offset);
+    }
+
+    /**
+     * Read a binary int of the current record in the byte order of the file.
+     * @param offset The offset of the field within the record.
+     * @return The value.
+     */
+    protected final int getInt(int offset) {
+        return buffer.getInt(position + offset);
+    }
+
+    /**
+     * Read a binary long of the current record in the byte order of the file.
+     * @param offset The offset of the field within the record.
+     * @return The value.
+     */
+    protected final long getLong(int offset) {
+        return buffer.getLong(position + offset);
+    }
+
+    /**
+     * Read a binary double of the current record in the byte order of the file.
+     * @param offset The offset of the field within the record.
+     * @return The value.
+     */
+    protected final double getDouble(int offset) {
+        return buffer.getDouble(position + offset);
+    }
+
+    /**
+     * Read a decimal number written with ASCII digits, e.g. "  -1234", without creating a String.
+     * Leading and trailing spaces and a leading sign are allowed.
+     * @param offset The offset of the field within the record.
+     * @param length The length of the field.
+     * @return The value or 0, if the field is blank.
+     * @throws NumberFormatException if the field contains other characters.
+     */
+    protected final long getAsciiLong(int offset, int length) {
+
+        int i = position + offset;
+        final int end = i + length;
+        while (i < end && buffer.get(i) == ' ') {
+            i++;
+        }
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long value = 0L;
+        for (; i < end; i++) {
+            final byte digit = buffer.get(i);
+            if (digit == ' ') {
+                break;
+            }
+            if (digit < '0' || digit > '9') {
+                throw new NumberFormatException("Field at offset " + offset + " of record " + recordNumber + " is not a number");
+            }
+            value = value * 10 + (digit - '0');
+        }
+        for (; i < end; i++) {
+            if (buffer.get(i) != ' ') {
+                throw new NumberFormatException("Field at offset " + offset + " of record " + recordNumber + " is not a number");
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Read a text field. Unlike the other accessors, this creates a String, so use it only, when the text is really needed.
+     * @param offset The offset of the field within the record.
+     * @param length The length of the field in bytes.
+     * @param charset The charset of the text.
+     * @return The text without trailing spaces.
+     */
+    protected final String getString(int offset, int length, Charset charset) {
+
+        int end = length;
+        while (end > 0 && buffer.get(position + offset + end - 1) == ' ') {
+            end--;
+        }
+        final byte[] bytes = new byte[end];
+        for (int i = 0; i < end; i++) {
+            bytes[i] = buffer.get(position + offset + i);
+        }
+        return new String(bytes, charset);
+    }
+}
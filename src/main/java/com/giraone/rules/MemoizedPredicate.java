@@ -0,0 +1,114 @@
+package com.giraone.rules;
+
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A condition, that remembers the values of an expensive predicate across evaluations, e.g. of a regular expression,
+ * a lookup in a large map or a signature check. It is used like any other predicate in {@link Rule#whenFacts(Predicate)},
+ * so the other conditions of the rule book are still evaluated for each facts.
+ * <p>
+ * The values are cached by a key of the facts, which must contain everything the predicate depends on.
+ * The cache is bounded and frequency-aware like the one of a {@link CachedRuleBook} and the values may expire after
+ * a given time, e.g. when the predicate depends on reference data, that changes now and then.
+ * A memoized predicate can be shared between threads, as long as the key extractor and the predicate are thread-safe.
+ *
+ * @param <F> The input facts class.
+ */
+public final class MemoizedPredicate<F> implements Predicate<F> {
+
+    private final Function<? super F, ?> keyExtractor;
+    private final Predicate<? super F> predicate;
+    private final BoundedCache<Object, Boolean> cache;
+
+    MemoizedPredicate(Function<? super F, ?> keyExtractor, Predicate<? super F> predicate, BoundedCache<Object, Boolean> cache) {
+        this.keyExtractor = keyExtractor;
+        this.predicate = predicate;
+        this.cache = cache;
+    }
+
+    /**
+     * Create a memoized predicate, whose values do not expire.
+     * @param keyExtractor The function, that extracts the key, on which the predicate depends, from the facts.
+     * @param predicate The expensive predicate.
+     * @param maximumSize The maximum number of cached values.
+     * @param <F> The input facts class.
+     * @return The memoized predicate.
+     */
+    public static <F> MemoizedPredicate<F> of(Function<? super F, ?> keyExtractor, Predicate<? super F> predicate, int maximumSize) {
+        return new MemoizedPredicate<>(keyExtractor, predicate, new BoundedCache<>(maximumSize));
+    }
+
+    /**
+     * Create a memoized predicate, whose values expire after the given time since they were evaluated.
+     * @param keyExtractor The function, that extracts the key, on which the predicate depends, from the facts.
+     * @param predicate The expensive predicate.
+     * @param maximumSize The maximum number of cached values.
+     * @param expireAfterWrite The time, after which a value is evaluated again.
+     * @param <F> The input facts class.
+     * @return The memoized predicate.
+     */
+    public static <F> MemoizedPredicate<F> of(Function<? super F, ?> keyExtractor, Predicate<? super F> predicate, int maximumSize,
+                                              Duration expireAfterWrite) {
+        return new MemoizedPredicate<>(keyExtractor, predicate, new BoundedCache<>(maximumSize, expireAfterWrite.toNanos(), System::nanoTime));
+    }
+
+    /**
+     * Test the facts or take the value from the cache. Null facts and facts with a null key are passed to the predicate
+     * without caching, so the memoized predicate accepts everything the predicate accepts.
+     * @param facts The input facts.
+     * @return The value of the predicate.
+     */
+    @Override
+    public boolean test(F facts) {
+
+        final Object key = facts != null ? keyExtractor.apply(facts) : null;
+        if (key == null) {
+            return predicate.test(facts);
+        }
+        final Boolean cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final boolean value = predicate.test(facts);
+        cache.put(key, value);
+        return value;
+    }
+
+    /**
+     * Remove all cached values, e.g. when the reference data of the predicate has changed.
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    /**
+     * Return the number of cached values.
+     * @return The number of cached values, including expired ones, that were not removed yet.
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Return the number of tests, whose value was taken from the cache.
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    /**
+     * Return the number of tests, for which the predicate was evaluated.
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    @Override
+    public String toString() {
+        return "memoized " + predicate;
+    }
+}
@@ -0,0 +1,53 @@
+package com.giraone.rules;
+
+/**
+ * A change of the rules of a rule book made by {@link RuleBook#compileOptimized()}, that does not change the outcome.
+ * See {@link CompiledRuleBook#getOptimizations()}.
+ */
+public final class Optimization {
+
+    /**
+     * The kind of change.
+     */
+    public enum Kind {
+        /** The rule was removed, because it follows a rule, that always stops the processing. */
+        UNREACHABLE_RULE_REMOVED,
+        /** The group was removed, because it contains no rules. */
+        EMPTY_GROUP_REMOVED,
+        /** The group was replaced by its rules, because its when clauses are always true. */
+        GROUP_FLATTENED,
+        /** The group was merged with its only rule, because the when clauses of this rule are always true. */
+        SINGLE_RULE_GROUP_MERGED,
+        /** The when clause of the rule was removed, because it is {@link Rule#always()}. */
+        ALWAYS_TRUE_CONDITION_REMOVED
+    }
+
+    private final Kind kind;
+    private final RuleInfo rule;
+
+    Optimization(Kind kind, RuleInfo rule) {
+        this.kind = kind;
+        this.rule = rule;
+    }
+
+    /**
+     * Return the kind of change.
+     * @return The kind.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Return the rule, that was removed or changed.
+     * @return The rule info.
+     */
+    public RuleInfo getRule() {
+        return rule;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + rule.getId();
+    }
+}
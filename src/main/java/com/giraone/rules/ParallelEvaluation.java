@@ -0,0 +1,147 @@
+package com.giraone.rules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Parallel batch evaluation for {@link CompiledRuleBook#applyOnAllInParallel(List, Supplier, ForkJoinPool)}
+ * and {@link CompiledRuleBook#applyOnAllInParallel(List, Supplier, Executor, int)}.
+ * Each outcome is written to the index of its facts, so the output order is always the input order.
+ * The facts are read by index, so a list without random access, e.g. a linked list, is copied once.
+ */
+final class ParallelEvaluation {
+
+    /** Stop splitting, when a worker already has more than this number of queued tasks, that were not stolen yet. */
+    private static final int SURPLUS_QUEUED_TASKS = 3;
+
+    private ParallelEvaluation() {
+    }
+
+    static <F, R> List<Outcome<F, R>> applyOnAll(CompiledRuleBook<F, R> ruleBook, CompiledRule<F, R>[] rules, List<? extends F> facts,
+                                                 Supplier<? extends R> resultSupplier, ForkJoinPool pool) {
+
+        @SuppressWarnings("unchecked")
+        final Outcome<F, R>[] outcomes = new Outcome[facts.size()];
+        pool.invoke(new EvaluationTask<>(null, ruleBook, rules, randomAccess(facts), resultSupplier, outcomes, 0, outcomes.length));
+        return Arrays.asList(outcomes);
+    }
+
+    static <F, R> List<Outcome<F, R>> applyOnAll(CompiledRuleBook<F, R> ruleBook, CompiledRule<F, R>[] rules, List<? extends F> facts,
+                                                 Supplier<? extends R> resultSupplier, Executor executor, int parallelism) {
+
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, but was " + parallelism);
+        }
+        final List<? extends F> indexedFacts = randomAccess(facts);
+        @SuppressWarnings("unchecked")
+        final Outcome<F, R>[] outcomes = new Outcome[indexedFacts.size()];
+        final AtomicInteger next = new AtomicInteger();
+        final CompletableFuture<?>[] workers = new CompletableFuture[Math.min(parallelism, Math.max(outcomes.length, 1))];
+        for (int w = 0; w < workers.length; w++) {
+            workers[w] = CompletableFuture.runAsync(() -> {
+                final EvaluationContext<F, R> context = new EvaluationContext<>(ruleBook, null);
+                int[] range;
+                while ((range = nextChunk(next, outcomes.length, workers.length)) != null) {
+                    evaluate(context, rules, indexedFacts, resultSupplier, outcomes, range[0], range[1]);
+                }
+            }, executor);
+        }
+        try {
+            CompletableFuture.allOf(workers).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return Arrays.asList(outcomes);
+    }
+
+    /**
+     * Return the facts as a list with fast access by index.
+     */
+    private static <F> List<? extends F> randomAccess(List<? extends F> facts) {
+        return facts instanceof RandomAccess ? facts : new ArrayList<>(facts);
+    }
+
+    /**
+     * Guided self-scheduling: the chunks start large and shrink with the remaining work,
+     * so workers, that got expensive facts, are compensated by the others at the end.
+     */
+    private static int[] nextChunk(AtomicInteger next, int size, int workers) {
+
+        while (true) {
+            final int from = next.get();
+            if (from >= size) {
+                return null;
+            }
+            final int to = from + Math.max(1, (size - from) / (2 * workers));
+            if (next.compareAndSet(from, to)) {
+                return new int[] { from, to };
+            }
+        }
+    }
+
+    private static <F, R> void evaluate(EvaluationContext<F, R> context, CompiledRule<F, R>[] rules, List<? extends F> facts,
+                                        Supplier<? extends R> resultSupplier, Outcome<F, R>[] outcomes, int from, int to) {
+
+        for (int i = from; i < to; i++) {
+            final Outcome<F, R> outcome = new Outcome<>(facts.get(i), resultSupplier.get());
+            context.begin(outcome);
+            CompiledRuleBook.evaluate(rules, context);
+            outcomes[i] = outcome;
+        }
+    }
+
+    /**
+     * Splits its range in halves as long as the forked halves are stolen by other workers.
+     * When facts are expensive, the workers run out of queued tasks and more splits are made.
+     */
+    private static final class EvaluationTask<F, R> extends CountedCompleter<Void> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient CompiledRuleBook<F, R> ruleBook;
+        private final transient CompiledRule<F, R>[] rules;
+        private final transient List<? extends F> facts;
+        private final transient Supplier<? extends R> resultSupplier;
+        private final transient Outcome<F, R>[] outcomes;
+        private final int from;
+        private final int to;
+
+        EvaluationTask(EvaluationTask<F, R> parent, CompiledRuleBook<F, R> ruleBook, CompiledRule<F, R>[] rules, List<? extends F> facts,
+                       Supplier<? extends R> resultSupplier, Outcome<F, R>[] outcomes, int from, int to) {
+            super(parent);
+            this.ruleBook = ruleBook;
+            this.rules = rules;
+            this.facts = facts;
+            this.resultSupplier = resultSupplier;
+            this.outcomes = outcomes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void compute() {
+
+            int hi = to;
+            while (hi - from > 1 && getSurplusQueuedTaskCount() <= SURPLUS_QUEUED_TASKS) {
+                final int mid = (from + hi) >>> 1;
+                addToPendingCount(1);
+                new EvaluationTask<>(this, ruleBook, rules, facts, resultSupplier, outcomes, mid, hi).fork();
+                hi = mid;
+            }
+            evaluate(new EvaluationContext<>(ruleBook, null), rules, facts, resultSupplier, outcomes, from, hi);
+            tryComplete();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.giraone.rules;
+
+import java.util.Arrays;
+import java.util.function.ToLongFunction;
+
+/**
+ * An interval index over a run of rules defined with {@link Rule#whenFactsInRange(ToLongFunction, long, long)}
+ * and the same value extractor. The bounds of all ranges split the values into elementary intervals, each with the
+ * rules covering it. The value is extracted once and its interval is found by a binary search over the sorted bounds.
+ *
+ * @param <F> The input facts class.
+ */
+final class RangeIndex<F> extends RuleIndex<F> {
+
+    private final ToLongFunction<F> valueExtractor;
+    /** The sorted start values of the elementary intervals. An interval ends before the start of the next one. */
+    private final long[] bounds;
+    private final int[][] candidatesByInterval;
+
+    RangeIndex(ToLongFunction<F> valueExtractor, long[] bounds, int[][] candidatesByInterval, int end) {
+        super(end);
+        this.valueExtractor = valueExtractor;
+        this.bounds = bounds;
+        this.candidatesByInterval = candidatesByInterval;
+    }
+
+    @Override
+    int[] candidates(F facts) {
+
+        final int position = Arrays.binarySearch(bounds, valueExtractor.applyAsLong(facts));
+        final int interval = position >= 0 ? position : -position - 2;
+        return interval >= 0 ? candidatesByInterval[interval] : NO_CANDIDATES;
+    }
+}
@@ -1,7 +1,15 @@
 package com.giraone.rules;
 
+import java.util.Objects;
 import java.util.function.Consumer;
+import java.util.function.DoublePredicate;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 /**
  * A rule based on facts F with a result outcome R
@@ -11,13 +19,68 @@ import java.util.function.Predicate;
  */
 public class Rule<F, R> {
 
+    private static final Predicate<Object> ALWAYS = new Predicate<Object>() {
+        @Override
+        public boolean test(Object value) {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "always";
+        }
+    };
+
+    String id;
     String whenFactsDescription;
     String whenOutcomeDescription;
     String thenDescription;
     Predicate<F> whenFactsFunction;
+    Function<F, ?> whenFactsKeyExtractor;
+    Object whenFactsKey;
+    ToLongFunction<F> whenFactsRangeExtractor;
+    long whenFactsRangeFrom;
+    long whenFactsRangeTo;
     Predicate<R> whenOutcomeFunction;
     Predicate<Outcome<F, R>> thenFunction;
-    Consumer<RuleBook<F, R>> groupedRules;
+    boolean thenStops;
+    RuleBook<F, R> groupedRules;
+    boolean orderIndependent;
+
+    /**
+     * Return a condition, that is always true, e.g. for <code>whenFacts(Rule.always())</code>.
+     * Unlike a lambda like <code>facts -&gt; true</code>, this condition is recognized by {@link RuleBook#compileOptimized()}.
+     * @param <T> The type of the tested value.
+     * @return The condition.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Predicate<T> always() {
+        return (Predicate<T>) ALWAYS;
+    }
+
+    /**
+     * Give the rule a stable id, that is reported to an {@link EvaluationListener}.
+     * If no id is given, the position of the rule within its rule book is used, e.g. "1.0".
+     * @param id  The id, that must be unique within the rule book
+     * @return The rule object
+     */
+    public Rule<F, R> id(String id) {
+        this.id = id;
+        return this;
+    }
+
+    /**
+     * Mark the rule as order-independent. A compiled rule book may apply consecutive order-independent rules
+     * of the same level in any order and adapts this order at runtime, so cheap rules, that often stop the processing,
+     * are applied first. When one of these rules stops the processing, the others may or may not have been applied.
+     * Mark only rules, whose result does not depend on the other rules, e.g. rules setting independent flags
+     * without when-outcome conditions. Rules, that are not marked, are always applied in their definition order.
+     * @return The rule object
+     */
+    public Rule<F, R> orderIndependent() {
+        this.orderIndependent = true;
+        return this;
+    }
 
     /**
      * Give the when clause of the rule a description, that is used for debugging.
@@ -67,12 +130,109 @@ public class Rule<F, R> {
     public Rule<F, R> whenFacts(Predicate<F> whenFactsFunction) {
 
         this.whenFactsFunction = whenFactsFunction;
+        this.whenFactsKeyExtractor = null;
+        this.whenFactsKey = null;
+        this.whenFactsRangeExtractor = null;
         if (this.whenFactsDescription == null) {
             this.whenFactsDescription = whenFactsFunction.toString();
         }
         return this;
     }
 
+    /**
+     * Define the facts condition under which the rule is applied as "the key of the facts equals the given key".
+     * A compiled rule book indexes consecutive rules, that use the same key extractor, in a hash table,
+     * so only the rules for the key of the facts are visited.
+     * @param keyExtractor  The function, that extracts the key from the facts. Use the same instance for all rules of an index.
+     * @param key  The key, that is compared with {@link Object#equals(Object)}, so it may be e.g. a String, an enum or a number.
+     * @param <K> The type of the key.
+     * @return The rule object
+     */
+    public <K> Rule<F, R> whenFactsKey(Function<F, K> keyExtractor, K key) {
+
+        if (this.whenFactsDescription == null) {
+            this.whenFactsDescription = "key = " + key;
+        }
+        whenFacts(facts -> Objects.equals(keyExtractor.apply(facts), key));
+        this.whenFactsKeyExtractor = keyExtractor;
+        this.whenFactsKey = key;
+        return this;
+    }
+
+    /**
+     * Define the facts condition under which the rule is applied as "the value of the facts is within the given range".
+     * A compiled rule book indexes consecutive rules, that use the same value extractor, in a sorted interval table,
+     * so the rules for the value of the facts are found by a binary search.
+     * {@link CompiledRuleBook#applyOnAllColumnar(java.util.List, java.util.function.Supplier)} tests the values of many facts
+     * at once with a {@link ColumnRangeKernel}.
+     * Use {@link Long#MIN_VALUE} or {@link Long#MAX_VALUE} for a range, that is open on one side, e.g. a threshold.
+     * @param valueExtractor  The function, that extracts the value from the facts. Use the same instance for all rules of an index.
+     * @param from  The lower bound of the range (inclusive).
+     * @param to  The upper bound of the range (inclusive).
+     * @return The rule object
+     */
+    public Rule<F, R> whenFactsInRange(ToLongFunction<F> valueExtractor, long from, long to) {
+
+        if (from > to) {
+            throw new IllegalArgumentException("Range from " + from + " to " + to + " is empty");
+        }
+        if (this.whenFactsDescription == null) {
+            this.whenFactsDescription = from + " <= value <= " + to;
+        }
+        whenFacts(ValueCondition.ofRange(valueExtractor, from, to));
+        this.whenFactsRangeExtractor = valueExtractor;
+        this.whenFactsRangeFrom = from;
+        this.whenFactsRangeTo = to;
+        return this;
+    }
+
+    /**
+     * Define the facts condition under which the rule is applied as a condition on an int value of the facts.
+     * A compiled rule book extracts the value of an extractor, that is used by more than one rule, only once per evaluation,
+     * so the facts are not read again by each rule and the value is not boxed.
+     * @param valueExtractor  The function, that extracts the value from the facts, e.g. <code>facts -&gt; facts.weightInKg</code>.
+     *                        Use the same instance for all rules, that test the same value.
+     * @param condition  The condition on the value.
+     * @return The rule object
+     */
+    public Rule<F, R> whenInt(ToIntFunction<F> valueExtractor, IntPredicate condition) {
+        return whenFacts(ValueCondition.ofInt(valueExtractor, condition));
+    }
+
+    /**
+     * Define the facts condition under which the rule is applied as a condition on a long value of the facts.
+     * See {@link #whenInt(ToIntFunction, IntPredicate)}.
+     * @param valueExtractor  The function, that extracts the value from the facts. Use the same instance for all rules, that test the same value.
+     * @param condition  The condition on the value.
+     * @return The rule object
+     */
+    public Rule<F, R> whenLong(ToLongFunction<F> valueExtractor, LongPredicate condition) {
+        return whenFacts(ValueCondition.ofLong(valueExtractor, condition));
+    }
+
+    /**
+     * Define the facts condition under which the rule is applied as a condition on a double value of the facts.
+     * See {@link #whenInt(ToIntFunction, IntPredicate)}.
+     * @param valueExtractor  The function, that extracts the value from the facts. Use the same instance for all rules, that test the same value.
+     * @param condition  The condition on the value.
+     * @return The rule object
+     */
+    public Rule<F, R> whenDouble(ToDoubleFunction<F> valueExtractor, DoublePredicate condition) {
+        return whenFacts(ValueCondition.ofDouble(valueExtractor, condition));
+    }
+
+    /**
+     * Define the facts condition under which the rule is applied as "the boolean value of the facts equals the expected value".
+     * See {@link #whenInt(ToIntFunction, IntPredicate)}.
+     * @param valueAccessor  The function, that reads the value from the facts, e.g. <code>facts -&gt; facts.mammal</code>.
+     *                       Use the same instance for all rules, that test the same value.
+     * @param expected  The expected value.
+     * @return The rule object
+     */
+    public Rule<F, R> whenBoolean(Predicate<F> valueAccessor, boolean expected) {
+        return whenFacts(ValueCondition.ofBoolean(valueAccessor, expected));
+    }
+
     /**
      * Define and optional outcome condition under which the rule is applied.
      * @param whenOutcomeFunction  Condition as a function with the outcome as the only parameter
@@ -101,6 +261,7 @@ public class Rule<F, R> {
             consumer.accept(f);
             return false;
         };
+        this.thenStops = false;
         if (this.thenDescription == null) {
             this.thenDescription = consumer.toString();
         }
@@ -121,6 +282,7 @@ public class Rule<F, R> {
             consumer.accept(f);
             return true;
         };
+        this.thenStops = true;
         if (this.thenDescription == null) {
             this.thenDescription = consumer.toString();
         }
@@ -129,6 +291,7 @@ public class Rule<F, R> {
 
     /**
      * Define grouping of rules, with the same when clause.
+     * The consumer is called only once, here, and the resulting group is re-used for every evaluation.
      * @param groupedRules  A consumer function where rules of the group can be added.
      * @return The rule object
      */
@@ -137,7 +300,9 @@ public class Rule<F, R> {
         if (this.thenFunction != null) {
             throw new IllegalStateException("thenGroupRules cannot be used, when thenStopWith/thenProceedWith is already defined");
         }
-        this.groupedRules = groupedRules;
+        final RuleBook<F, R> group = new RuleBook<>();
+        groupedRules.accept(group);
+        this.groupedRules = group;
         if (this.thenDescription == null) {
             this.thenDescription = groupedRules.toString();
         }
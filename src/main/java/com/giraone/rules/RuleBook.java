@@ -5,6 +5,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 /**
  * A rule book applied on input facts of type F with an output result of type R.
@@ -15,7 +16,7 @@ public class RuleBook<F, R> {
 
     private static final BiConsumer<String,Boolean> EMPTY_LOG = (d,r) -> {};
 
-    private final List<Rule<F, R>> rules = new ArrayList<>();
+    final List<Rule<F, R>> rules = new ArrayList<>();
 
     /**
      * Add a new rule to the end of the rule book.
@@ -37,6 +38,30 @@ public class RuleBook<F, R> {
         return this;
     }
 
+    /**
+     * Freeze the current rules into an immutable, thread-safe {@link CompiledRuleBook}.
+     * Rules added to this rule book afterwards are not part of the compiled rule book.
+     * When facts conditions, that are used by more than one rule (the same or equal predicate), are evaluated only once
+     * per evaluation and their value is re-used, so they must not depend on anything else than the facts.
+     * @return The compiled rule book.
+     * @throws IllegalStateException when a rule has neither a then function nor grouped rules.
+     */
+    public CompiledRuleBook<F, R> compile() {
+        return new RuleBookCompiler<F, R>().compile(rules);
+    }
+
+    /**
+     * Freeze the current rules like {@link #compile()} and remove or merge rules, that cannot change the outcome:
+     * rules after a rule, that always stops, empty groups, groups without conditions and groups with a single rule
+     * without conditions. Use {@link Rule#always()} for conditions, that are always true.
+     * The changes are returned by {@link CompiledRuleBook#getOptimizations()}. Removed rules are not reported to listeners.
+     * @return The compiled rule book.
+     * @throws IllegalStateException when a rule has neither a then function nor grouped rules.
+     */
+    public CompiledRuleBook<F, R> compileOptimized() {
+        return new RuleBookCompiler<>(new RuleBookOptimizer<F, R>()).compile(rules);
+    }
+
     /**
      * Apply all rules on given facts and define the result
      * @param facts The input facts.
@@ -61,10 +86,51 @@ public class RuleBook<F, R> {
 
         final Outcome<F, R> outcome = new Outcome<>(facts, result); // outcome is used globally
         final AtomicBoolean stopped = new AtomicBoolean(false); // stopped work globally
+        final EvaluationRecorder recorder = EvaluationRecorders.INSTANCE;
+        if (!recorder.isEvaluationEnabled()) {
+            applyOnFacts(outcome, stopped, "", facts, result, logWhen, logThen);
+            return outcome;
+        }
+        final Object evaluation = recorder.evaluationStart();
         applyOnFacts(outcome, stopped, "", facts, result, logWhen, logThen);
+        recorder.evaluationEnd(evaluation, stopped.get());
         return outcome;
     }
 
+    /**
+     * Apply all rules on each of the given facts, like {@link #applyOnFacts(Object, Object)} does.
+     * The rule book is not compiled, so for large batches compile it once and use {@link CompiledRuleBook#applyOnAll(Iterable, Supplier)}.
+     * @param facts The input facts.
+     * @param resultSupplier A supplier for the output result object of each facts.
+     * @return The tupels of input facts and output result in the order of the input facts.
+     */
+    public List<Outcome<F, R>> applyOnAll(Iterable<? extends F> facts, Supplier<? extends R> resultSupplier) {
+
+        final List<Outcome<F, R>> outcomes = facts instanceof Collection
+            ? new ArrayList<>(((Collection<?>) facts).size())
+            : new ArrayList<>();
+        for (F fact : facts) {
+            outcomes.add(applyOnFacts(fact, resultSupplier.get()));
+        }
+        return outcomes;
+    }
+
+    /**
+     * Apply all rules on each of the given facts, like {@link #applyOnFacts(Object, Object)} does.
+     * The rule book is not compiled, so for large batches compile it once and use {@link CompiledRuleBook#applyOnAll(Object[], Supplier)}.
+     * @param facts The input facts.
+     * @param resultSupplier A supplier for the output result object of each facts.
+     * @return The tupels of input facts and output result in the order of the input facts.
+     */
+    public List<Outcome<F, R>> applyOnAll(F[] facts, Supplier<? extends R> resultSupplier) {
+
+        final List<Outcome<F, R>> outcomes = new ArrayList<>(facts.length);
+        for (F fact : facts) {
+            outcomes.add(applyOnFacts(fact, resultSupplier.get()));
+        }
+        return outcomes;
+    }
+
     //------------------------------------------------------------------------------------------------------------------
 
     private void applyOnFacts(Outcome<F, R> outcome,
@@ -74,6 +140,9 @@ public class RuleBook<F, R> {
                               BiConsumer<String,Boolean> logWhen,
                               BiConsumer<String,Boolean> logThen) {
 
+        // nothing is logged, boxed or concatenated for a logging function, that is not given
+        final boolean loggingWhen = logWhen != EMPTY_LOG;
+        final boolean loggingThen = logThen != EMPTY_LOG;
         rules.stream()
             .filter(rule -> {
                 if (stopped.get()) {
@@ -82,22 +151,27 @@ public class RuleBook<F, R> {
                 boolean whenResult = true;
                 if (rule.whenFactsFunction != null) {
                     whenResult = rule.whenFactsFunction.test(facts);
-                    logWhen.accept(parentWhenDescription + rule.whenFactsDescription, whenResult);
+                    if (loggingWhen) {
+                        logWhen.accept(parentWhenDescription + rule.whenFactsDescription, whenResult);
+                    }
                 }
                 if (whenResult && rule.whenOutcomeFunction != null) {
                     whenResult = rule.whenOutcomeFunction.test(result);
-                    logWhen.accept(rule.whenOutcomeDescription, whenResult);
+                    if (loggingWhen) {
+                        logWhen.accept(rule.whenOutcomeDescription, whenResult);
+                    }
                 }
                 return whenResult;
             })
             .forEach(rule -> {
                 if (rule.groupedRules != null) {
-                    final RuleBook<F,R> ruleBook = new RuleBook<>();
-                    rule.groupedRules.accept(ruleBook);
-                    ruleBook.applyOnFacts(outcome, stopped, rule.whenFactsDescription + " AND ", facts, result, logWhen, logThen);
+                    final String groupWhenDescription = loggingWhen ? rule.whenFactsDescription + " AND " : "";
+                    rule.groupedRules.applyOnFacts(outcome, stopped, groupWhenDescription, facts, result, logWhen, logThen);
                 } else {
                     final boolean mustStop = rule.thenFunction.test(outcome);
-                    logThen.accept(rule.thenDescription, mustStop);
+                    if (loggingThen) {
+                        logThen.accept(rule.thenDescription, mustStop);
+                    }
                     stopped.set(mustStop);
                 }
             });
@@ -0,0 +1,304 @@
+package com.giraone.rules;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Compiles the rules of a {@link RuleBook} into a {@link CompiledRuleBook}.
+ * <ul>
+ *     <li>Each rule gets a {@link RuleInfo} with a unique id.</li>
+ *     <li>An optional {@link RuleBookOptimizer} removes and merges rules, that do not change the outcome.</li>
+ *     <li>When facts conditions, that are used by more than one rule, become shared conditions, which are
+ *     evaluated only once per evaluation. Conditions are the same, when they are equal, e.g. the same predicate instance.</li>
+ *     <li>Value extractors of {@link ValueCondition}s, e.g. defined by {@link Rule#whenInt(ToIntFunction, IntPredicate)},
+ *     that are used by more than one rule, get a value slot, so the value is extracted only once per evaluation.</li>
+ *     <li>Runs of at least {@link #MIN_INDEXED_RUN} consecutive rules defined by {@link Rule#whenFactsKey(Function, Object)}
+ *     with the same key extractor are indexed by a {@link KeyIndex}, runs defined by
+ *     {@link Rule#whenFactsInRange(ToLongFunction, long, long)} with the same value extractor by a {@link RangeIndex}.</li>
+ *     <li>Runs of at least 2 consecutive rules marked by {@link Rule#orderIndependent()}, that are not indexed,
+ *     become a {@link RuleSegment}, whose order is adapted at runtime.</li>
+ * </ul>
+ *
+ * @param <F> The input facts class.
+ * @param <R> The output result class.
+ */
+final class RuleBookCompiler<F, R> {
+
+    /** The minimum number of consecutive rules, for which an index is built. For less rules, testing each rule is cheaper. */
+    static final int MIN_INDEXED_RUN = 4;
+
+    private final List<RuleInfo> ruleInfos = new ArrayList<>();
+    private final Set<String> ids = new HashSet<>();
+    private final Map<Predicate<F>, Integer> sharedConditionSlots = new HashMap<>();
+    private final Map<Object, Integer> valueSlots = new HashMap<>();
+    private final RuleBookOptimizer<F, R> optimizer;
+    /** The index of the first rule info, that is created. */
+    private int firstIndex;
+
+    RuleBookCompiler() {
+        this(null);
+    }
+
+    /**
+     * @param optimizer The optimizer, that is applied on the rules before the rule book is built, or null.
+     */
+    RuleBookCompiler(RuleBookOptimizer<F, R> optimizer) {
+        this.optimizer = optimizer;
+    }
+
+    CompiledRuleBook<F, R> compile(List<Rule<F, R>> rules) {
+
+        final Map<Predicate<F>, Integer> conditionUsages = new HashMap<>();
+        final Map<Object, Integer> extractorUsages = new HashMap<>();
+        countConditionUsages(rules, conditionUsages, extractorUsages);
+        conditionUsages.forEach((condition, usages) -> {
+            if (usages > 1) {
+                sharedConditionSlots.put(condition, sharedConditionSlots.size());
+            }
+        });
+        extractorUsages.forEach((extractor, usages) -> {
+            if (usages > 1) {
+                valueSlots.put(extractor, valueSlots.size());
+            }
+        });
+        List<Node<F, R>> nodes = buildNodes(rules, null);
+        if (optimizer != null) {
+            nodes = optimizer.optimize(nodes);
+        }
+        final CompiledRule<F, R>[] compiledRules = compileLevel(nodes);
+        return new CompiledRuleBook<>(compiledRules, ruleInfos, sharedConditionSlots.size(), valueSlots.size(),
+            optimizer != null ? optimizer.getOptimizations() : Collections.emptyList());
+    }
+
+    /**
+     * Compile a rule, that replaces an already compiled rule, e.g. in a {@link LinkedRuleBook}.
+     * The rule keeps the id, index and parent of the replaced rule. Its grouped rules get new infos,
+     * whose indexes start at the given index, so they do not clash with the indexes of the other rules.
+     */
+    CompiledRule<F, R> compileReplacement(Rule<F, R> rule, RuleInfo replaced, int firstGroupedIndex) {
+
+        firstIndex = firstGroupedIndex;
+        ids.add(replaced.getId());
+        final RuleInfo info = new RuleInfo(replaced.getId(), replaced.getIndex(), replaced.getParent(), rule);
+        return compile(new Node<>(rule, info, buildGroupedNodes(rule, info)), null, null);
+    }
+
+    /**
+     * Build the nodes of one level with their infos. The ids are derived from the positions in the definition,
+     * so they do not change, when rules are removed by the optimizer.
+     */
+    private List<Node<F, R>> buildNodes(List<Rule<F, R>> rules, RuleInfo parent) {
+
+        final List<Node<F, R>> nodes = new ArrayList<>(rules.size());
+        for (int i = 0; i < rules.size(); i++) {
+            final Rule<F, R> rule = rules.get(i);
+            final String id = rule.id != null ? rule.id : (parent == null ? "" : parent.getId() + ".") + i;
+            if (!ids.add(id)) {
+                throw new IllegalStateException("Rule id \"" + id + "\" is not unique");
+            }
+            final RuleInfo info = new RuleInfo(id, firstIndex + ruleInfos.size(), parent, rule);
+            ruleInfos.add(info);
+            nodes.add(new Node<>(rule, info, buildGroupedNodes(rule, info)));
+        }
+        return nodes;
+    }
+
+    private List<Node<F, R>> buildGroupedNodes(Rule<F, R> rule, RuleInfo info) {
+
+        if (rule.groupedRules != null) {
+            return buildNodes(rule.groupedRules.rules, info);
+        } else if (rule.thenFunction != null) {
+            return null;
+        } else {
+            throw new IllegalStateException("Rule \"" + info.getId() + "\" (" + rule.whenFactsDescription
+                + ") has neither thenStopWith/thenProceedWith nor thenGroupRules");
+        }
+    }
+
+    private CompiledRule<F, R>[] compileLevel(List<Node<F, R>> nodes) {
+
+        @SuppressWarnings("unchecked")
+        final CompiledRule<F, R>[] compiledRules = new CompiledRule[nodes.size()];
+        final RuleIndex<F>[] indexes = buildIndexes(nodes);
+        final RuleSegment[] segments = buildSegments(nodes, indexes);
+        for (int i = 0; i < compiledRules.length; i++) {
+            compiledRules[i] = compile(nodes.get(i), indexes[i], segments[i]);
+        }
+        return compiledRules;
+    }
+
+    private CompiledRule<F, R> compile(Node<F, R> node, RuleIndex<F> index, RuleSegment segment) {
+
+        final Integer slot = node.whenFactsFunction != null ? sharedConditionSlots.get(node.whenFactsFunction) : null;
+        final Integer valueSlot = slot == null && node.whenFactsFunction instanceof ValueCondition
+            ? valueSlots.get(((ValueCondition<F>) node.whenFactsFunction).extractor) : null;
+        return new CompiledRule<>(node.info, node.whenFactsFunction, slot != null ? slot : -1, valueSlot != null ? valueSlot : -1,
+            node.whenOutcomeFunction, node.thenFunction, node.children != null ? compileLevel(node.children) : null, index, segment);
+    }
+
+    /**
+     * Build the indexes for the runs of rules of one level.
+     * @return The indexes by the position of the first rule of their run.
+     */
+    private static <F, R> RuleIndex<F>[] buildIndexes(List<Node<F, R>> nodes) {
+
+        @SuppressWarnings("unchecked")
+        final RuleIndex<F>[] indexes = new RuleIndex[nodes.size()];
+        int start = 0;
+        while (start < nodes.size()) {
+            final Object extractor = indexExtractor(nodes.get(start));
+            int end = start + 1;
+            if (extractor != null) {
+                while (end < nodes.size() && extractor.equals(indexExtractor(nodes.get(end)))) {
+                    end++;
+                }
+                if (end - start >= MIN_INDEXED_RUN) {
+                    final Rule<F, R> first = nodes.get(start).rule;
+                    indexes[start] = first.whenFactsKeyExtractor != null
+                        ? buildKeyIndex(nodes, first.whenFactsKeyExtractor, start, end)
+                        : buildRangeIndex(nodes, first.whenFactsRangeExtractor, start, end);
+                }
+            }
+            start = end;
+        }
+        return indexes;
+    }
+
+    /**
+     * Build the segments of order-independent rules of one level.
+     * @return The segments by the position of the first rule of their run.
+     */
+    private static <F, R> RuleSegment[] buildSegments(List<Node<F, R>> nodes, RuleIndex<F>[] indexes) {
+
+        final RuleSegment[] segments = new RuleSegment[nodes.size()];
+        int start = 0;
+        while (start < nodes.size()) {
+            if (indexes[start] != null) {
+                start = indexes[start].end;
+                continue;
+            }
+            int end = start;
+            while (end < nodes.size() && nodes.get(end).rule.orderIndependent && indexes[end] == null) {
+                end++;
+            }
+            if (end - start >= 2) {
+                segments[start] = new RuleSegment(start, end);
+            }
+            start = Math.max(end, start + 1);
+        }
+        return segments;
+    }
+
+    /**
+     * Return the key or value extractor of an indexable rule or null.
+     * A rule is only indexable, when its when clause is still the one defined by the key or range.
+     */
+    private static Object indexExtractor(Node<?, ?> node) {
+
+        final Rule<?, ?> rule = node.rule;
+        if (node.whenFactsFunction != rule.whenFactsFunction) {
+            return null;
+        }
+        return rule.whenFactsKeyExtractor != null ? rule.whenFactsKeyExtractor : rule.whenFactsRangeExtractor;
+    }
+
+    private static <F, R> KeyIndex<F> buildKeyIndex(List<Node<F, R>> nodes, Function<F, ?> keyExtractor, int start, int end) {
+
+        final Map<Object, List<Integer>> positionsByKey = new HashMap<>();
+        for (int i = start; i < end; i++) {
+            positionsByKey.computeIfAbsent(nodes.get(i).rule.whenFactsKey, key -> new ArrayList<>()).add(i);
+        }
+        final Map<Object, int[]> candidatesByKey = new HashMap<>();
+        positionsByKey.forEach((key, positions) -> candidatesByKey.put(key, positions.stream().mapToInt(Integer::intValue).toArray()));
+        return new KeyIndex<>(keyExtractor, candidatesByKey, end);
+    }
+
+    private static <F, R> RangeIndex<F> buildRangeIndex(List<Node<F, R>> nodes, ToLongFunction<F> valueExtractor, int start, int end) {
+
+        // the bounds split the values into elementary intervals, each interval starts with a bound
+        final TreeSet<Long> boundSet = new TreeSet<>();
+        for (int i = start; i < end; i++) {
+            final Rule<F, R> rule = nodes.get(i).rule;
+            boundSet.add(rule.whenFactsRangeFrom);
+            if (rule.whenFactsRangeTo != Long.MAX_VALUE) {
+                boundSet.add(rule.whenFactsRangeTo + 1);
+            }
+        }
+        final long[] bounds = boundSet.stream().mapToLong(Long::longValue).toArray();
+        final int[][] candidatesByInterval = new int[bounds.length][];
+        final Map<List<Integer>, int[]> distinctCandidates = new HashMap<>();
+        for (int interval = 0; interval < bounds.length; interval++) {
+            final List<Integer> positions = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                final Rule<F, R> rule = nodes.get(i).rule;
+                if (rule.whenFactsRangeFrom <= bounds[interval] && bounds[interval] <= rule.whenFactsRangeTo) {
+                    positions.add(i);
+                }
+            }
+            candidatesByInterval[interval] = distinctCandidates.computeIfAbsent(positions,
+                key -> key.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return new RangeIndex<>(valueExtractor, bounds, candidatesByInterval, end);
+    }
+
+    private static <F, R> void countConditionUsages(List<Rule<F, R>> rules, Map<Predicate<F>, Integer> conditionUsages,
+                                                    Map<Object, Integer> extractorUsages) {
+
+        for (Rule<F, R> rule : rules) {
+            if (rule.whenFactsFunction != null) {
+                conditionUsages.merge(rule.whenFactsFunction, 1, Integer::sum);
+            }
+            if (rule.whenFactsFunction instanceof ValueCondition) {
+                extractorUsages.merge(((ValueCondition<F>) rule.whenFactsFunction).extractor, 1, Integer::sum);
+            }
+            if (rule.groupedRules != null) {
+                countConditionUsages(rule.groupedRules.rules, conditionUsages, extractorUsages);
+            }
+        }
+    }
+
+    /**
+     * A rule with its info and grouped rules, before it is compiled. The optimizer may change the functions,
+     * e.g. when it merges a group with its single rule, while the rule stays the source of the other properties.
+     *
+     * @param <F> The input facts class.
+     * @param <R> The output result class.
+     */
+    static final class Node<F, R> {
+
+        final Rule<F, R> rule;
+        final RuleInfo info;
+        final Predicate<F> whenFactsFunction;
+        final Predicate<R> whenOutcomeFunction;
+        final Predicate<Outcome<F, R>> thenFunction;
+        final boolean thenStops;
+        /** The grouped rules or null, when the rule has a then function. */
+        final List<Node<F, R>> children;
+
+        Node(Rule<F, R> rule, RuleInfo info, List<Node<F, R>> children) {
+            this(rule, info, rule.whenFactsFunction, rule.whenOutcomeFunction, rule.thenFunction, rule.thenStops, children);
+        }
+
+        Node(Rule<F, R> rule, RuleInfo info, Predicate<F> whenFactsFunction, Predicate<R> whenOutcomeFunction,
+             Predicate<Outcome<F, R>> thenFunction, boolean thenStops, List<Node<F, R>> children) {
+            this.rule = rule;
+            this.info = info;
+            this.whenFactsFunction = whenFactsFunction;
+            this.whenOutcomeFunction = whenOutcomeFunction;
+            this.thenFunction = children == null ? thenFunction : null;
+            this.thenStops = thenStops;
+            this.children = children;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.giraone.rules;
+
+import com.giraone.rules.Optimization.Kind;
+import com.giraone.rules.RuleBookCompiler.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Removes and merges rules, that do not change the outcome, before a rule book is compiled:
+ * <ul>
+ *     <li>Rules after a rule, that always stops, i.e. that has no or only {@link Rule#always()} conditions and
+ *     uses thenStopWith, are removed. Order-independent rules do not remove the following rules.</li>
+ *     <li>Groups without rules are removed.</li>
+ *     <li>Groups, that have no or only {@link Rule#always()} conditions, are replaced by their rules.</li>
+ *     <li>Groups, whose only rule has no or only {@link Rule#always()} conditions, are merged with this rule.</li>
+ * </ul>
+ * Conditions are assumed to have no side effects. Lambdas cannot be inspected, so a condition like
+ * <code>facts -&gt; true</code> is not recognized as always true. The rule infos and ids of all rules are kept,
+ * so the ids of the remaining rules do not change.
+ *
+ * @param <F> The input facts class.
+ * @param <R> The output result class.
+ */
+final class RuleBookOptimizer<F, R> {
+
+    private final List<Optimization> optimizations = new ArrayList<>();
+
+    /**
+     * Return the changes made by the optimizer.
+     * @return An unmodifiable list of changes in the order they were made.
+     */
+    List<Optimization> getOptimizations() {
+        return Collections.unmodifiableList(optimizations);
+    }
+
+    /**
+     * Optimize the rules of one level (the top level or a group) and their grouped rules.
+     * @return The optimized rules.
+     */
+    List<Node<F, R>> optimize(List<Node<F, R>> nodes) {
+
+        final List<Node<F, R>> optimized = new ArrayList<>(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            if (add(optimized, optimize(nodes.get(i)))) {
+                reportUnreachable(nodes.subList(i + 1, nodes.size()));
+                break;
+            }
+        }
+        return optimized;
+    }
+
+    /**
+     * Optimize a single rule.
+     * @return The optimized rules replacing the rule, i.e. none, the rule itself, a merged rule or the flattened rules of a group.
+     */
+    private List<Node<F, R>> optimize(Node<F, R> node) {
+
+        Node<F, R> current = node;
+        if (node.whenFactsFunction == Rule.always()) {
+            optimizations.add(new Optimization(Kind.ALWAYS_TRUE_CONDITION_REMOVED, node.info));
+            current = new Node<>(node.rule, node.info, null, node.whenOutcomeFunction, node.thenFunction, node.thenStops, node.children);
+        }
+        if (current.children == null) {
+            return Collections.singletonList(current);
+        }
+        final List<Node<F, R>> children = optimize(current.children);
+        if (children.isEmpty()) {
+            optimizations.add(new Optimization(Kind.EMPTY_GROUP_REMOVED, node.info));
+            return Collections.emptyList();
+        }
+        if (isUnconditional(current)) {
+            optimizations.add(new Optimization(Kind.GROUP_FLATTENED, node.info));
+            return children;
+        }
+        if (children.size() == 1 && isUnconditional(children.get(0)) && children.get(0).children == null) {
+            final Node<F, R> child = children.get(0);
+            optimizations.add(new Optimization(Kind.SINGLE_RULE_GROUP_MERGED, node.info));
+            // the merged node tests the conditions of the group, so it is reported as the group
+            return Collections.singletonList(new Node<>(current.rule, current.info, current.whenFactsFunction,
+                current.whenOutcomeFunction, child.thenFunction, child.thenStops, null));
+        }
+        return Collections.singletonList(new Node<>(current.rule, current.info, current.whenFactsFunction,
+            current.whenOutcomeFunction, null, false, children));
+    }
+
+    /**
+     * Add optimized rules to a level, until a rule always stops.
+     * @return true, if an added rule always stops, so the following rules of the level are unreachable.
+     */
+    private boolean add(List<Node<F, R>> level, List<Node<F, R>> nodes) {
+
+        for (int i = 0; i < nodes.size(); i++) {
+            final Node<F, R> node = nodes.get(i);
+            level.add(node);
+            if (node.children == null && node.thenStops && isUnconditional(node) && !node.rule.orderIndependent) {
+                reportUnreachable(nodes.subList(i + 1, nodes.size()));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void reportUnreachable(List<Node<F, R>> nodes) {
+        for (Node<F, R> node : nodes) {
+            optimizations.add(new Optimization(Kind.UNREACHABLE_RULE_REMOVED, node.info));
+        }
+    }
+
+    private static boolean isUnconditional(Node<?, ?> node) {
+        return (node.whenFactsFunction == null || node.whenFactsFunction == Rule.always()) && node.whenOutcomeFunction == null;
+    }
+}
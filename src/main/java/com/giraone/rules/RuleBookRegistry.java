@@ -0,0 +1,125 @@
+package com.giraone.rules;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * A registry, that publishes immutable versions of a rule book, so rules can be reloaded while other threads evaluate facts.
+ * <p>
+ * The current version is held in an {@link AtomicReference}. Each evaluation reads the current version once and
+ * finishes on it, even when a new version is published meanwhile. Evaluations starting after a publish use the new version.
+ * Old versions are not referenced by the registry, so they are garbage collected, when no evaluation uses them anymore.
+ * No locks are needed for evaluations.
+ *
+ * @param <F> The type of the input facts.
+ * @param <R> The type of the output result.
+ */
+public final class RuleBookRegistry<F, R> {
+
+    private final AtomicReference<Version<F, R>> current;
+
+    /**
+     * Create a registry with an initial rule book as version 1.
+     * @param ruleBook The initial rule book, that is compiled.
+     */
+    public RuleBookRegistry(RuleBook<F, R> ruleBook) {
+        this(ruleBook.compile());
+    }
+
+    /**
+     * Create a registry with an initial compiled rule book as version 1.
+     * @param ruleBook The initial rule book.
+     */
+    public RuleBookRegistry(CompiledRuleBook<F, R> ruleBook) {
+        this.current = new AtomicReference<>(new Version<>(1, Objects.requireNonNull(ruleBook, "ruleBook")));
+    }
+
+    /**
+     * Compile a rule book and publish it as the new current version. The rule book must not be changed during this call,
+     * later changes of the rule book do not affect the published version.
+     * @param ruleBook The new rule book.
+     * @return The published version.
+     */
+    public Version<F, R> publish(RuleBook<F, R> ruleBook) {
+        return publish(ruleBook.compile());
+    }
+
+    /**
+     * Publish a compiled rule book as the new current version.
+     * @param ruleBook The new rule book.
+     * @return The published version.
+     */
+    public Version<F, R> publish(CompiledRuleBook<F, R> ruleBook) {
+
+        Objects.requireNonNull(ruleBook, "ruleBook");
+        return current.updateAndGet(version -> new Version<>(version.number + 1, ruleBook));
+    }
+
+    /**
+     * Return the current version. Use it, when more than one call must see the same rule book.
+     * @return The current version.
+     */
+    public Version<F, R> current() {
+        return current.get();
+    }
+
+    /**
+     * Apply all rules of the current version on given facts and define the result
+     * @param facts The input facts.
+     * @param result The output result object, that is changed by the rules.
+     * @return The tupel of input facts and output result.
+     */
+    public Outcome<F, R> applyOnFacts(F facts, R result) {
+        return current.get().ruleBook.applyOnFacts(facts, result);
+    }
+
+    /**
+     * Apply all rules of the current version on each of the given facts. All facts are evaluated with the same version.
+     * @param facts The input facts.
+     * @param resultSupplier A supplier for the output result object of each facts.
+     * @return The outcomes in the order of the facts.
+     */
+    public List<Outcome<F, R>> applyOnAll(Iterable<? extends F> facts, Supplier<? extends R> resultSupplier) {
+        return current.get().ruleBook.applyOnAll(facts, resultSupplier);
+    }
+
+    /**
+     * An immutable, published version of a rule book.
+     *
+     * @param <F> The type of the input facts.
+     * @param <R> The type of the output result.
+     */
+    public static final class Version<F, R> {
+
+        private final long number;
+        private final CompiledRuleBook<F, R> ruleBook;
+
+        Version(long number, CompiledRuleBook<F, R> ruleBook) {
+            this.number = number;
+            this.ruleBook = ruleBook;
+        }
+
+        /**
+         * Return the number of the version, starting with 1 and incremented by each publish.
+         * @return The version number.
+         */
+        public long getNumber() {
+            return number;
+        }
+
+        /**
+         * Return the rule book of this version.
+         * @return The compiled rule book.
+         */
+        public CompiledRuleBook<F, R> getRuleBook() {
+            return ruleBook;
+        }
+
+        @Override
+        public String toString() {
+            return "Version " + number;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.giraone.rules;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * The counters of a single rule of an instrumented {@link CompiledRuleBook}.
+ * The counters are {@link LongAdder}s, which spread concurrent updates over padded cells,
+ * so many threads can count without contention or false sharing.
+ * The rule functions are wrapped by functions, that count and time their calls.
+ */
+final class RuleCounters {
+
+    final RuleInfo rule;
+    final LongAdder whenFactsEvaluated = new LongAdder();
+    final LongAdder whenFactsMatched = new LongAdder();
+    final LongAdder whenOutcomeEvaluated = new LongAdder();
+    final LongAdder whenOutcomeMatched = new LongAdder();
+    final LongAdder thenApplied = new LongAdder();
+    final LongAdder stopped = new LongAdder();
+    final LongAdder nanos = new LongAdder();
+
+    RuleCounters(RuleInfo rule) {
+        this.rule = rule;
+    }
+
+    <F> Predicate<F> countWhenFacts(Predicate<F> whenFactsFunction) {
+
+        if (whenFactsFunction == null) {
+            return null;
+        }
+        return facts -> {
+            final long start = System.nanoTime();
+            final boolean value = whenFactsFunction.test(facts);
+            nanos.add(System.nanoTime() - start);
+            whenFactsEvaluated.increment();
+            if (value) {
+                whenFactsMatched.increment();
+            }
+            return value;
+        };
+    }
+
+    <R> Predicate<R> countWhenOutcome(Predicate<R> whenOutcomeFunction) {
+
+        if (whenOutcomeFunction == null) {
+            return null;
+        }
+        return result -> {
+            final long start = System.nanoTime();
+            final boolean value = whenOutcomeFunction.test(result);
+            nanos.add(System.nanoTime() - start);
+            whenOutcomeEvaluated.increment();
+            if (value) {
+                whenOutcomeMatched.increment();
+            }
+            return value;
+        };
+    }
+
+    <F, R> Predicate<Outcome<F, R>> countThen(Predicate<Outcome<F, R>> thenFunction) {
+
+        if (thenFunction == null) {
+            return null;
+        }
+        return outcome -> {
+            final long start = System.nanoTime();
+            final boolean value = thenFunction.test(outcome);
+            nanos.add(System.nanoTime() - start);
+            thenApplied.increment();
+            if (value) {
+                stopped.increment();
+            }
+            return value;
+        };
+    }
+
+    RuleStatistics snapshot() {
+        return new RuleStatistics(rule, whenFactsEvaluated.sum(), whenFactsMatched.sum(), whenOutcomeEvaluated.sum(),
+            whenOutcomeMatched.sum(), thenApplied.sum(), stopped.sum(), nanos.sum());
+    }
+
+    void reset() {
+        whenFactsEvaluated.reset();
+        whenFactsMatched.reset();
+        whenOutcomeEvaluated.reset();
+        whenOutcomeMatched.reset();
+        thenApplied.reset();
+        stopped.reset();
+        nanos.reset();
+    }
+}
@@ -0,0 +1,27 @@
+package com.giraone.rules;
+
+/**
+ * An index over a run of consecutive rules of one level (the top level or a group) of a {@link CompiledRuleBook}.
+ * Instead of testing the when clause of each rule of the run, the index returns the rules, whose when clause is true.
+ * It is attached to the first rule of the run.
+ *
+ * @param <F> The input facts class.
+ */
+abstract class RuleIndex<F> {
+
+    static final int[] NO_CANDIDATES = new int[0];
+
+    /** The position of the first rule after the run. */
+    final int end;
+
+    RuleIndex(int end) {
+        this.end = end;
+    }
+
+    /**
+     * Return the positions of the rules of the run, whose when clause is true for the given facts.
+     * @param facts The input facts.
+     * @return The positions within the level in ascending order, which must not be changed.
+     */
+    abstract int[] candidates(F facts);
+}
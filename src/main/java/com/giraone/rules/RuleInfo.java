@@ -0,0 +1,114 @@
+package com.giraone.rules;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The identity of a rule within a {@link CompiledRuleBook}, as reported to an {@link EvaluationListener}.
+ * Rule infos are created once, when the rule book is compiled, and are never changed afterwards.
+ */
+public final class RuleInfo {
+
+    private final String id;
+    private final int index;
+    private final RuleInfo parent;
+    private final List<String> groupPath;
+    private final String whenFactsDescription;
+    private final String whenOutcomeDescription;
+    private final String thenDescription;
+    private String qualifiedWhenFactsDescription; // lazily created, racy single-check is fine for a String
+
+    RuleInfo(String id, int index, RuleInfo parent, Rule<?, ?> rule) {
+        this.id = id;
+        this.index = index;
+        this.parent = parent;
+        if (parent == null) {
+            this.groupPath = Collections.emptyList();
+        } else {
+            final List<String> path = new ArrayList<>(parent.groupPath);
+            path.add(parent.id);
+            this.groupPath = Collections.unmodifiableList(path);
+        }
+        this.whenFactsDescription = rule.whenFactsDescription;
+        this.whenOutcomeDescription = rule.whenOutcomeDescription;
+        this.thenDescription = rule.thenDescription;
+    }
+
+    /**
+     * Return the id of the rule. This is either the id given by {@link Rule#id(String)} or the position of the rule.
+     * @return The id, that is unique within the compiled rule book.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Return the index of the rule. All rules of a compiled rule book, including grouped ones,
+     * are numbered from 0 in their definition order, so the index can be used for arrays.
+     * The grouped rules of a rule replaced in a {@link LinkedRuleBook} get new indexes above all others.
+     * @return The index of the rule.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Return the rule, that defines the group of this rule.
+     * @return The group rule or null, if the rule is on the top level.
+     */
+    public RuleInfo getParent() {
+        return parent;
+    }
+
+    /**
+     * Return the ids of the enclosing group rules, starting with the top level one.
+     * @return An unmodifiable list of ids, that is empty for rules on the top level.
+     */
+    public List<String> getGroupPath() {
+        return groupPath;
+    }
+
+    /**
+     * Return the description of the when clause.
+     * @return The description given by {@link Rule#whenFacts(String)} or null.
+     */
+    public String getWhenFactsDescription() {
+        return whenFactsDescription;
+    }
+
+    /**
+     * Return the description of the when clause, prefixed with the description of the enclosing group, if there is one.
+     * The description is created on the first call.
+     * @return The description, like "If animal is a mammal? AND If mammal weights more than 2kg?".
+     */
+    public String getQualifiedWhenFactsDescription() {
+        String ret = qualifiedWhenFactsDescription;
+        if (ret == null) {
+            ret = parent == null ? whenFactsDescription : parent.whenFactsDescription + " AND " + whenFactsDescription;
+            qualifiedWhenFactsDescription = ret;
+        }
+        return ret;
+    }
+
+    /**
+     * Return the description of the and-when-outcome clause.
+     * @return The description given by {@link Rule#whenOutcome(String)} or null.
+     */
+    public String getWhenOutcomeDescription() {
+        return whenOutcomeDescription;
+    }
+
+    /**
+     * Return the description of the then clause.
+     * @return The description given by {@link Rule#thenStopWith(String)} or {@link Rule#thenProceedWith(String)} or null.
+     */
+    public String getThenDescription() {
+        return thenDescription;
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
@@ -0,0 +1,63 @@
+package com.giraone.rules;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The per-rule metrics of a rule book created by {@link CompiledRuleBook#instrument()}.
+ * The metrics are updated by all threads, that use the instrumented rule book, and can be read at any time.
+ */
+public final class RuleMetrics {
+
+    private final RuleCounters[] counters;
+
+    RuleMetrics(List<RuleInfo> ruleInfos) {
+        this.counters = new RuleCounters[ruleInfos.size()];
+        for (RuleInfo ruleInfo : ruleInfos) {
+            counters[ruleInfo.getIndex()] = new RuleCounters(ruleInfo);
+        }
+    }
+
+    /**
+     * Return a snapshot of the counters of all rules.
+     * @return An unmodifiable list of statistics ordered by {@link RuleInfo#getIndex()}.
+     */
+    public List<RuleStatistics> snapshot() {
+
+        final List<RuleStatistics> statistics = new ArrayList<>(counters.length);
+        for (RuleCounters ruleCounters : counters) {
+            statistics.add(ruleCounters.snapshot());
+        }
+        return Collections.unmodifiableList(statistics);
+    }
+
+    /**
+     * Return a snapshot of the counters of a single rule.
+     * @param id The id of the rule, see {@link RuleInfo#getId()}.
+     * @return The statistics of the rule.
+     * @throws IllegalArgumentException if there is no rule with the id.
+     */
+    public RuleStatistics snapshot(String id) {
+
+        for (RuleCounters ruleCounters : counters) {
+            if (ruleCounters.rule.getId().equals(id)) {
+                return ruleCounters.snapshot();
+            }
+        }
+        throw new IllegalArgumentException("Rule id \"" + id + "\" is unknown");
+    }
+
+    /**
+     * Reset the counters of all rules to 0. Concurrent updates may be lost.
+     */
+    public void reset() {
+        for (RuleCounters ruleCounters : counters) {
+            ruleCounters.reset();
+        }
+    }
+
+    RuleCounters counters(RuleInfo rule) {
+        return counters[rule.getIndex()];
+    }
+}
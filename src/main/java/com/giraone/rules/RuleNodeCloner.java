@@ -0,0 +1,199 @@
+package com.giraone.rules;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Creates the {@link SpecializedRuleNode} objects of one {@link SpecializedRuleBook}, each of its own copy of the class.
+ * All copies are defined by one class loader from the bytes of the template class. Each copy gets a unique name and
+ * the placeholder types of its next node and its first grouped node are replaced by the names of their copies.
+ * The names are replaced in the constant pool of the class file, the code itself is not changed.
+ */
+final class RuleNodeCloner {
+
+    private static final String TEMPLATE_NAME = SpecializedRuleNode.class.getName();
+    private static final String NEXT_NAME = SpecializedRuleNext.class.getName();
+    private static final String CHILD_NAME = SpecializedRuleChild.class.getName();
+    private static final Pattern PLACEHOLDERS = Pattern.compile(
+        internalName(TEMPLATE_NAME) + "|" + internalName(NEXT_NAME) + "|" + internalName(CHILD_NAME));
+    private static final byte[] TEMPLATE_BYTES = readTemplateBytes();
+    private static final int MAGIC = 0xCAFEBABE;
+    /** The latest class file version (Java 21), whose constant pool is known to the cloner. */
+    static final int MAX_MAJOR_VERSION = 65;
+
+    private final CloningClassLoader loader = new CloningClassLoader(SpecializedRuleNode.class.getClassLoader());
+    private int count;
+
+    RuleNodeCloner() {
+        if (TEMPLATE_BYTES == null) {
+            throw new IllegalStateException("Cannot read the class file of " + TEMPLATE_NAME);
+        }
+    }
+
+    /**
+     * Create a node of a new copy of the template class.
+     * @param child The first node of the grouped rules, that is called instead of the then function, or null.
+     * @param next The next node of the chain or null.
+     */
+    @SuppressWarnings("unchecked")
+    <F, R> Predicate<Outcome<F, R>> newNode(Predicate<F> whenFactsFunction, Predicate<R> whenOutcomeFunction,
+                                            Predicate<Outcome<F, R>> thenFunction,
+                                            Predicate<Outcome<F, R>> child, Predicate<Outcome<F, R>> next) {
+
+        final String name = TEMPLATE_NAME + "$$" + count++;
+        // a missing node is typed as the node itself, so all types of the constructor can be resolved
+        final Map<String, String> names = new HashMap<>();
+        names.put(internalName(TEMPLATE_NAME), internalName(name));
+        names.put(internalName(NEXT_NAME), internalName(next != null ? next.getClass().getName() : name));
+        names.put(internalName(CHILD_NAME), internalName(child != null ? child.getClass().getName() : name));
+
+        final Class<?> nodeClass = loader.defineClone(name, rename(TEMPLATE_BYTES, names));
+        try {
+            final Constructor<?> constructor = nodeClass.getDeclaredConstructors()[0];
+            constructor.setAccessible(true);
+            return (Predicate<Outcome<F, R>>) constructor.newInstance(whenFactsFunction, whenOutcomeFunction, thenFunction, child, next);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create rule node of " + nodeClass, e);
+        }
+    }
+
+    private static String internalName(String name) {
+        return name.replace('.', '/');
+    }
+
+    /**
+     * Copy a class file and replace the placeholder names in its UTF-8 constants.
+     * @throws IllegalStateException if the class file has a version or a constant, that is not known.
+     */
+    static byte[] rename(byte[] classFile, Map<String, String> names) {
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile))) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(classFile.length + 256);
+            final DataOutputStream out = new DataOutputStream(bytes);
+            final int magic = in.readInt();
+            final int minorVersion = in.readUnsignedShort();
+            final int majorVersion = in.readUnsignedShort();
+            if (magic != MAGIC || majorVersion > MAX_MAJOR_VERSION) {
+                throw new IllegalStateException("Unknown class file version " + majorVersion + "." + minorVersion + " in " + TEMPLATE_NAME);
+            }
+            out.writeInt(magic);
+            out.writeShort(minorVersion);
+            out.writeShort(majorVersion);
+            final int constantCount = in.readUnsignedShort();
+            out.writeShort(constantCount);
+            for (int i = 1; i < constantCount; i++) {
+                final int tag = in.readUnsignedByte();
+                out.writeByte(tag);
+                switch (tag) {
+                    case 1: // Utf8
+                        final byte[] utf8 = new byte[in.readUnsignedShort()];
+                        in.readFully(utf8);
+                        final byte[] renamed = renameConstant(utf8, names);
+                        out.writeShort(renamed.length);
+                        out.write(renamed);
+                        break;
+                    case 7: // Class
+                    case 8: // String
+                    case 16: // MethodType
+                    case 19: // Module
+                    case 20: // Package
+                        out.writeShort(in.readUnsignedShort());
+                        break;
+                    case 15: // MethodHandle
+                        out.writeByte(in.readUnsignedByte());
+                        out.writeShort(in.readUnsignedShort());
+                        break;
+                    case 3: // Integer
+                    case 4: // Float
+                    case 9: // Fieldref
+                    case 10: // Methodref
+                    case 11: // InterfaceMethodref
+                    case 12: // NameAndType
+                    case 17: // Dynamic
+                    case 18: // InvokeDynamic
+                        out.writeInt(in.readInt());
+                        break;
+                    case 5: // Long
+                    case 6: // Double
+                        out.writeLong(in.readLong());
+                        i++;
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown constant tag " + tag + " in " + TEMPLATE_NAME);
+                }
+            }
+            final byte[] buffer = new byte[4096];
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                out.write(buffer, 0, length);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot copy the class file of " + TEMPLATE_NAME, e);
+        }
+    }
+
+    private static byte[] renameConstant(byte[] utf8, Map<String, String> names) {
+
+        // the names are ASCII, a multi-byte character never contains an ASCII byte
+        final String constant = new String(utf8, StandardCharsets.ISO_8859_1);
+        final Matcher matcher = PLACEHOLDERS.matcher(constant);
+        if (!matcher.find()) {
+            return utf8;
+        }
+        final StringBuffer renamed = new StringBuffer();
+        do {
+            matcher.appendReplacement(renamed, Matcher.quoteReplacement(names.get(matcher.group())));
+        } while (matcher.find());
+        matcher.appendTail(renamed);
+        return renamed.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] readTemplateBytes() {
+
+        final String resource = TEMPLATE_NAME.substring(TEMPLATE_NAME.lastIndexOf('.') + 1) + ".class";
+        try (InputStream in = SpecializedRuleNode.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                return null;
+            }
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The class loader of one rule book, that defines the copies of the template class and delegates all other
+     * classes to the parent. A copy finds the copies of its next and grouped nodes, because they are defined before.
+     */
+    private static final class CloningClassLoader extends ClassLoader {
+
+        CloningClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> defineClone(String name, byte[] bytes) {
+            synchronized (getClassLoadingLock(name)) {
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        }
+    }
+}
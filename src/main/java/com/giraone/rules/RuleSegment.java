@@ -0,0 +1,171 @@
+package com.giraone.rules;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A run of consecutive rules of one level, that are marked by {@link Rule#orderIndependent()}.
+ * The rules of a segment are applied in an order, that is adapted at runtime:
+ * <ul>
+ *     <li>Every {@link #SAMPLE_RATE}th evaluation of the segment is sampled, i.e. the time of the when clauses and the stops
+ *     of its rules are measured. The time of the then clauses is not measured, because it is spent only after the decision.</li>
+ *     <li>After every {@link #REORDER_INTERVAL} sampled evaluations, the rules are sorted by their expected cost until a stop,
+ *     i.e. their average time divided by their (smoothed) probability to stop, so cheap rules, that stop often, come first.
+ *     Then all statistics are halved, so they decay exponentially and the order follows changes of the facts.</li>
+ * </ul>
+ * It is attached to the first rule of the run. The order is published as a new array, so it can be read without locking.
+ */
+final class RuleSegment {
+
+    /** The rate of sampled evaluations, which must be a power of two. */
+    static final int SAMPLE_RATE = 64;
+    static final int REORDER_INTERVAL = 256;
+
+    /** The position of the first rule of the segment. */
+    final int start;
+    /** The position of the first rule after the segment. */
+    final int end;
+    private volatile int[] order;
+    private final LongAdder[] applied;
+    private final LongAdder[] stopped;
+    private final LongAdder[] nanos;
+    private final AtomicInteger samples = new AtomicInteger();
+    private final LongSupplier clock;
+    // Not atomic, because concurrent evaluations may lose increments, which only shifts the sampled evaluations.
+    private int evaluations;
+
+    RuleSegment(int start, int end) {
+        this(start, end, System::nanoTime);
+    }
+
+    /**
+     * @param clock The clock, that measures the time of the when clauses in nanoseconds.
+     */
+    RuleSegment(int start, int end, LongSupplier clock) {
+        this.start = start;
+        this.end = end;
+        this.clock = clock;
+        final int[] initialOrder = new int[end - start];
+        for (int i = 0; i < initialOrder.length; i++) {
+            initialOrder[i] = start + i;
+        }
+        this.order = initialOrder;
+        this.applied = newAdders(initialOrder.length);
+        this.stopped = newAdders(initialOrder.length);
+        this.nanos = newAdders(initialOrder.length);
+    }
+
+    /**
+     * Return a segment over the same rules, that starts again with the definition order and no statistics.
+     */
+    RuleSegment copy() {
+        return new RuleSegment(start, end, clock);
+    }
+
+    /**
+     * Return the positions of the rules in the current order.
+     */
+    int[] order() {
+        return order;
+    }
+
+    /**
+     * Apply the rules of the segment in the current order.
+     * @return true, if a rule stopped the processing.
+     */
+    <F, R> boolean apply(CompiledRule<F, R>[] rules, EvaluationContext<F, R> context) {
+
+        final int[] currentOrder = order;
+        if ((++evaluations & (SAMPLE_RATE - 1)) == 0) {
+            return applySampled(rules, context, currentOrder);
+        }
+        for (int position : currentOrder) {
+            if (CompiledRuleBook.applyRule(rules[position], context)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Apply the rules of the segment in the current order and inform the listener. These evaluations are not sampled.
+     * @return true, if a rule stopped the processing.
+     */
+    <F, R> boolean apply(CompiledRule<F, R>[] rules, EvaluationContext<F, R> context, EvaluationListener listener) {
+
+        for (int position : order) {
+            if (CompiledRuleBook.applyRule(rules[position], context, listener)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private <F, R> boolean applySampled(CompiledRule<F, R>[] rules, EvaluationContext<F, R> context, int[] currentOrder) {
+
+        boolean stop = false;
+        for (int position : currentOrder) {
+            final CompiledRule<F, R> rule = rules[position];
+            final long begin = clock.getAsLong();
+            final boolean when = CompiledRuleBook.testWhen(rule, context);
+            nanos[position - start].add(clock.getAsLong() - begin);
+            applied[position - start].increment();
+            if (when && CompiledRuleBook.applyThenClause(rule, context)) {
+                stopped[position - start].increment();
+                stop = true;
+                break;
+            }
+        }
+        if (samples.incrementAndGet() % REORDER_INTERVAL == 0) {
+            reorder();
+        }
+        return stop;
+    }
+
+    private void reorder() {
+
+        final double[] expectedCosts = new double[order.length];
+        for (int i = 0; i < expectedCosts.length; i++) {
+            final long n = applied[i].sum();
+            final double averageNanos = n == 0 ? 0.0 : (double) nanos[i].sum() / n;
+            final double stopProbability = (stopped[i].sum() + 1.0) / (n + 2.0);
+            expectedCosts[i] = averageNanos / stopProbability;
+        }
+        // an insertion sort, because segments are short and it is stable and does not allocate more than the new order
+        final int[] newOrder = order.clone();
+        for (int i = 1; i < newOrder.length; i++) {
+            final int position = newOrder[i];
+            final double expectedCost = expectedCosts[position - start];
+            int j = i - 1;
+            while (j >= 0 && expectedCosts[newOrder[j] - start] > expectedCost) {
+                newOrder[j + 1] = newOrder[j];
+                j--;
+            }
+            newOrder[j + 1] = position;
+        }
+        order = newOrder;
+        for (int i = 0; i < expectedCosts.length; i++) {
+            halve(applied[i]);
+            halve(stopped[i]);
+            halve(nanos[i]);
+        }
+    }
+
+    /**
+     * Halve a statistic. Samples, that are added concurrently, are kept, because the removed half is subtracted.
+     */
+    private static void halve(LongAdder adder) {
+        final long sum = adder.sum();
+        adder.add(sum / 2 - sum);
+    }
+
+    private static LongAdder[] newAdders(int length) {
+
+        final LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
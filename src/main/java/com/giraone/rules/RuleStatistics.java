@@ -0,0 +1,101 @@
+package com.giraone.rules;
+
+/**
+ * An immutable snapshot of the counters of a single rule of an instrumented {@link CompiledRuleBook}.
+ * The counters are read one after the other while other threads may still evaluate facts,
+ * so the values of one snapshot may differ slightly, e.g. matched may be larger than evaluated.
+ */
+public final class RuleStatistics {
+
+    private final RuleInfo rule;
+    private final long whenFactsEvaluated;
+    private final long whenFactsMatched;
+    private final long whenOutcomeEvaluated;
+    private final long whenOutcomeMatched;
+    private final long thenApplied;
+    private final long stopped;
+    private final long nanos;
+
+    RuleStatistics(RuleInfo rule, long whenFactsEvaluated, long whenFactsMatched, long whenOutcomeEvaluated,
+                   long whenOutcomeMatched, long thenApplied, long stopped, long nanos) {
+        this.rule = rule;
+        this.whenFactsEvaluated = whenFactsEvaluated;
+        this.whenFactsMatched = whenFactsMatched;
+        this.whenOutcomeEvaluated = whenOutcomeEvaluated;
+        this.whenOutcomeMatched = whenOutcomeMatched;
+        this.thenApplied = thenApplied;
+        this.stopped = stopped;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Return the rule, with its id and descriptions.
+     * @return The rule info.
+     */
+    public RuleInfo getRule() {
+        return rule;
+    }
+
+    /**
+     * Return how often the when clause was evaluated. A shared condition is counted only for the rule, that evaluated it.
+     * @return The number of evaluations.
+     */
+    public long getWhenFactsEvaluated() {
+        return whenFactsEvaluated;
+    }
+
+    /**
+     * Return how often the when clause was true.
+     * @return The number of matches.
+     */
+    public long getWhenFactsMatched() {
+        return whenFactsMatched;
+    }
+
+    /**
+     * Return how often the and-when-outcome clause was evaluated.
+     * @return The number of evaluations.
+     */
+    public long getWhenOutcomeEvaluated() {
+        return whenOutcomeEvaluated;
+    }
+
+    /**
+     * Return how often the and-when-outcome clause was true.
+     * @return The number of matches.
+     */
+    public long getWhenOutcomeMatched() {
+        return whenOutcomeMatched;
+    }
+
+    /**
+     * Return how often the then clause was applied. Always 0 for rules with grouped rules.
+     * @return The number of applications.
+     */
+    public long getThenApplied() {
+        return thenApplied;
+    }
+
+    /**
+     * Return how often the rule stopped the processing.
+     * @return The number of stops.
+     */
+    public long getStopped() {
+        return stopped;
+    }
+
+    /**
+     * Return the cumulative time spent in the clauses of the rule. The time of grouped rules is not included.
+     * @return The time in nanoseconds.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return rule.getId() + ": whenFacts=" + whenFactsMatched + "/" + whenFactsEvaluated
+            + ", whenOutcome=" + whenOutcomeMatched + "/" + whenOutcomeEvaluated
+            + ", then=" + thenApplied + ", stopped=" + stopped + ", nanos=" + nanos;
+    }
+}
@@ -0,0 +1,125 @@
+package com.giraone.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * An immutable rule book created by {@link CompiledRuleBook#specialize()}, that gives each rule its own class.
+ * <p>
+ * In a large rule book, the calls of the rule functions within one evaluation loop see many lambda classes,
+ * so the JIT cannot inline them. A specialized rule book evaluates each rule with its own copy of a small node class,
+ * so each call of a rule function sees only one lambda class and can be inlined. There is no loop over the rules:
+ * each node calls the next node of its chain and the first node of its group by a field of the exact class of that node,
+ * so these calls are bound statically, too. Chains are at most {@link #CHAIN_LENGTH} nodes long, longer levels are
+ * split into chains, whose first nodes are linked by nodes without conditions, so the depth of the calls stays small.
+ * <p>
+ * Each node costs a class in the metaspace, all classes of a rule book share one class loader, so specialize only
+ * rule books, that are evaluated very often. Shared conditions and indexes are not used, each condition is evaluated
+ * directly. Listeners are not supported, an {@link EvaluationRecorder} records only the evaluations, not the groups.
+ * A specialized rule book can be shared between threads without locking, as long as the rule functions themselves are thread-safe.
+ *
+ * @param <F> The type of the input facts.
+ * @param <R> The type of the output result.
+ */
+public final class SpecializedRuleBook<F, R> {
+
+    /** The maximum number of nodes, that are chained directly. It is about the depth, to which the JIT inlines calls. */
+    static final int CHAIN_LENGTH = 16;
+
+    final List<Predicate<Outcome<F, R>>> nodes = new ArrayList<>();
+    private final Predicate<Outcome<F, R>> firstNode;
+    private final List<RuleInfo> ruleInfos;
+
+    SpecializedRuleBook(CompiledRule<F, R>[] rules, List<RuleInfo> ruleInfos) {
+        this.firstNode = linkLevel(rules, new RuleNodeCloner());
+        this.ruleInfos = ruleInfos;
+    }
+
+    /**
+     * Return the infos of all rules, including the grouped ones, ordered by {@link RuleInfo#getIndex()}.
+     * @return An unmodifiable list of rule infos.
+     */
+    public List<RuleInfo> getRuleInfos() {
+        return ruleInfos;
+    }
+
+    /**
+     * Apply all rules on given facts and define the result
+     * @param facts The input facts.
+     * @param result The output result object, that is changed by the rules.
+     * @return The tupel of input facts and output result.
+     */
+    public Outcome<F, R> applyOnFacts(F facts, R result) {
+
+        final Outcome<F, R> outcome = new Outcome<>(facts, result);
+        final EvaluationRecorder recorder = EvaluationRecorders.INSTANCE;
+        if (!recorder.isEvaluationEnabled()) {
+            if (firstNode != null) {
+                firstNode.test(outcome);
+            }
+            return outcome;
+        }
+        final Object evaluation = recorder.evaluationStart();
+        recorder.evaluationEnd(evaluation, firstNode != null && firstNode.test(outcome));
+        return outcome;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Create the nodes of one level (the top level or a group).
+     * @return The first node of the level or null, if the level is empty.
+     */
+    private Predicate<Outcome<F, R>> linkLevel(CompiledRule<F, R>[] rules, RuleNodeCloner cloner) {
+
+        final List<NodeSpec<F, R>> specs = new ArrayList<>(rules.length);
+        for (CompiledRule<F, R> rule : rules) {
+            specs.add(rule.groupedRules != null
+                ? new NodeSpec<>(rule.whenFactsFunction, rule.whenOutcomeFunction, null, linkLevel(rule.groupedRules, cloner))
+                : new NodeSpec<>(rule.whenFactsFunction, rule.whenOutcomeFunction, rule.thenFunction, null));
+        }
+        return linkChains(specs, cloner);
+    }
+
+    private Predicate<Outcome<F, R>> linkChains(List<NodeSpec<F, R>> specs, RuleNodeCloner cloner) {
+
+        if (specs.size() <= CHAIN_LENGTH) {
+            return linkChain(specs, cloner);
+        }
+        final List<NodeSpec<F, R>> chains = new ArrayList<>((specs.size() + CHAIN_LENGTH - 1) / CHAIN_LENGTH);
+        for (int from = 0; from < specs.size(); from += CHAIN_LENGTH) {
+            final List<NodeSpec<F, R>> chain = specs.subList(from, Math.min(from + CHAIN_LENGTH, specs.size()));
+            chains.add(new NodeSpec<>(null, null, null, linkChain(chain, cloner)));
+        }
+        return linkChains(chains, cloner);
+    }
+
+    private Predicate<Outcome<F, R>> linkChain(List<NodeSpec<F, R>> specs, RuleNodeCloner cloner) {
+
+        // the next node is created first, so its class is known to the node before it
+        Predicate<Outcome<F, R>> next = null;
+        for (int i = specs.size() - 1; i >= 0; i--) {
+            final NodeSpec<F, R> spec = specs.get(i);
+            next = cloner.newNode(spec.whenFactsFunction, spec.whenOutcomeFunction, spec.thenFunction, spec.child, next);
+            nodes.add(next);
+        }
+        return next;
+    }
+
+    private static final class NodeSpec<F, R> {
+
+        final Predicate<F> whenFactsFunction;
+        final Predicate<R> whenOutcomeFunction;
+        final Predicate<Outcome<F, R>> thenFunction;
+        final Predicate<Outcome<F, R>> child;
+
+        NodeSpec(Predicate<F> whenFactsFunction, Predicate<R> whenOutcomeFunction, Predicate<Outcome<F, R>> thenFunction,
+                 Predicate<Outcome<F, R>> child) {
+            this.whenFactsFunction = whenFactsFunction;
+            this.whenOutcomeFunction = whenOutcomeFunction;
+            this.thenFunction = thenFunction;
+            this.child = child;
+        }
+    }
+}
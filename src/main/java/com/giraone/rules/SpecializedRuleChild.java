@@ -0,0 +1,10 @@
+package com.giraone.rules;
+
+/**
+ * A placeholder for the type of the first node of the chain of grouped rules in {@link SpecializedRuleNode}.
+ * The {@link RuleNodeCloner} replaces it by the exact copy of that node, so it is never loaded at runtime.
+ */
+abstract class SpecializedRuleChild {
+
+    abstract boolean test(Outcome<Object, Object> outcome);
+}
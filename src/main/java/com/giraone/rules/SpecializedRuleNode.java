@@ -0,0 +1,53 @@
+package com.giraone.rules;
+
+import java.util.function.Predicate;
+
+/**
+ * The template for the evaluation of a single rule by a {@link SpecializedRuleBook}.
+ * The {@link RuleNodeCloner} defines a copy of this class for each node, so each copy has its own call sites for the
+ * rule functions. These call sites see only one lambda class, so the JIT can inline the rule functions.
+ * <p>
+ * In each copy, the types {@link SpecializedRuleNext} and {@link SpecializedRuleChild} are replaced by the exact copies
+ * of the next node and of the first grouped node, so the calls of these nodes are bound statically, too.
+ * A copy belongs to another runtime package, so this class must only use public types and members.
+ */
+final class SpecializedRuleNode implements Predicate<Outcome<Object, Object>> {
+
+    private final Predicate<Object> whenFactsFunction;
+    private final Predicate<Object> whenOutcomeFunction;
+    private final Predicate<Outcome<Object, Object>> thenFunction;
+    private final SpecializedRuleChild child;
+    private final SpecializedRuleNext next;
+
+    SpecializedRuleNode(Predicate<Object> whenFactsFunction, Predicate<Object> whenOutcomeFunction,
+                        Predicate<Outcome<Object, Object>> thenFunction, SpecializedRuleChild child, SpecializedRuleNext next) {
+        this.whenFactsFunction = whenFactsFunction;
+        this.whenOutcomeFunction = whenOutcomeFunction;
+        this.thenFunction = thenFunction;
+        this.child = child;
+        this.next = next;
+    }
+
+    /**
+     * Apply the rule and the rules of the following nodes of the chain.
+     * @return true, if a rule stopped the processing.
+     */
+    @Override
+    public boolean test(Outcome<Object, Object> outcome) {
+        return applyRule(outcome) || next != null && next.test(outcome);
+    }
+
+    private boolean applyRule(Outcome<Object, Object> outcome) {
+
+        if (whenFactsFunction != null && !whenFactsFunction.test(outcome.facts)) {
+            return false;
+        }
+        if (whenOutcomeFunction != null && !whenOutcomeFunction.test(outcome.result)) {
+            return false;
+        }
+        if (child != null) {
+            return child.test(outcome);
+        }
+        return thenFunction != null && thenFunction.test(outcome);
+    }
+}
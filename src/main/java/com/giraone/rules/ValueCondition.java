@@ -0,0 +1,145 @@
+package com.giraone.rules;
+
+import java.util.function.DoublePredicate;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * A when facts condition on a primitive value, that is extracted from the facts, defined by e.g.
+ * {@link Rule#whenInt(ToIntFunction, IntPredicate)}. The extractor is visible to the {@link RuleBookCompiler},
+ * so a compiled rule book extracts the value of an extractor, that is used by many rules, only once per evaluation.
+ * <p>
+ * The values of all primitive types are passed as a long without boxing: an int is widened, a double is stored
+ * with {@link Double#doubleToRawLongBits(double)} and a boolean is 0 or 1.
+ *
+ * @param <F> The input facts class.
+ */
+abstract class ValueCondition<F> implements Predicate<F> {
+
+    /** The extractor, whose values are cached. Conditions with the same extractor instance share the cached value. */
+    final Object extractor;
+    private final Object condition;
+
+    private ValueCondition(Object extractor, Object condition) {
+        this.extractor = extractor;
+        this.condition = condition;
+    }
+
+    /**
+     * Extract the value from the facts.
+     */
+    abstract long extract(F facts);
+
+    /**
+     * Test an extracted value.
+     */
+    abstract boolean testValue(long value);
+
+    @Override
+    public final boolean test(F facts) {
+        return testValue(extract(facts));
+    }
+
+    @Override
+    public String toString() {
+        return condition.toString();
+    }
+
+    static <F> ValueCondition<F> ofInt(ToIntFunction<F> valueExtractor, IntPredicate valueCondition) {
+
+        return new ValueCondition<F>(valueExtractor, valueCondition) {
+            @Override
+            long extract(F facts) {
+                return valueExtractor.applyAsInt(facts);
+            }
+
+            @Override
+            boolean testValue(long value) {
+                return valueCondition.test((int) value);
+            }
+        };
+    }
+
+    static <F> ValueCondition<F> ofLong(ToLongFunction<F> valueExtractor, LongPredicate valueCondition) {
+
+        return new ValueCondition<F>(valueExtractor, valueCondition) {
+            @Override
+            long extract(F facts) {
+                return valueExtractor.applyAsLong(facts);
+            }
+
+            @Override
+            boolean testValue(long value) {
+                return valueCondition.test(value);
+            }
+        };
+    }
+
+    static <F> LongRange<F> ofRange(ToLongFunction<F> valueExtractor, long from, long to) {
+        return new LongRange<>(valueExtractor, from, to);
+    }
+
+    static <F> ValueCondition<F> ofDouble(ToDoubleFunction<F> valueExtractor, DoublePredicate valueCondition) {
+
+        return new ValueCondition<F>(valueExtractor, valueCondition) {
+            @Override
+            long extract(F facts) {
+                return Double.doubleToRawLongBits(valueExtractor.applyAsDouble(facts));
+            }
+
+            @Override
+            boolean testValue(long value) {
+                return valueCondition.test(Double.longBitsToDouble(value));
+            }
+        };
+    }
+
+    static <F> ValueCondition<F> ofBoolean(Predicate<F> valueAccessor, boolean expected) {
+
+        return new ValueCondition<F>(valueAccessor, valueAccessor + " = " + expected) {
+            @Override
+            long extract(F facts) {
+                return valueAccessor.test(facts) ? 1L : 0L;
+            }
+
+            @Override
+            boolean testValue(long value) {
+                return (value != 0L) == expected;
+            }
+        };
+    }
+
+    /**
+     * The condition of {@link Rule#whenFactsInRange(ToLongFunction, long, long)}. Its bounds are visible, so
+     * {@link ColumnarEvaluation} can test the values of many facts at once with a {@link ColumnRangeKernel}.
+     */
+    static final class LongRange<F> extends ValueCondition<F> {
+
+        private final ToLongFunction<F> valueExtractor;
+        /** The lower bound (inclusive). */
+        final long from;
+        /** The upper bound (inclusive). */
+        final long to;
+
+        private LongRange(ToLongFunction<F> valueExtractor, long from, long to) {
+            super(valueExtractor, from + " <= value <= " + to);
+            this.valueExtractor = valueExtractor;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        long extract(F facts) {
+            return valueExtractor.applyAsLong(facts);
+        }
+
+        @Override
+        boolean testValue(long value) {
+            return value >= from && value <= to;
+        }
+    }
+}
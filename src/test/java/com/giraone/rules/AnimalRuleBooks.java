@@ -0,0 +1,115 @@
+package com.giraone.rules;
+
+import com.giraone.rules.RuleBookTest.AnimalFacts;
+import com.giraone.rules.RuleBookTest.Result;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The rule books of {@link RuleBookTest} as re-usable test fixtures.
+ */
+final class AnimalRuleBooks {
+
+    private AnimalRuleBooks() {
+    }
+
+    static List<RuleBook<AnimalFacts, Result>> all() {
+        return Arrays.asList(simple(), grouped(), outcomeConditions());
+    }
+
+    static RuleBook<AnimalFacts, Result> simple() {
+
+        return new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts("If there is no weight given?")
+                .whenFacts(facts -> facts.weightInKg <= 0)
+                .thenStopWith("Stop processing and give a hint to set the weight.")
+                .thenStopWith(outcome -> {
+                    outcome.result.addConclusion("A " + outcome.facts.animalName + " cannot be analyzed.");
+                    outcome.result.setHint("You must set a positive weight.");
+                })
+            )
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts("If animal is no mammal?")
+                .whenFacts(facts -> !facts.mammal)
+                .thenStopWith("Stop processing and conclude, that the animal does not give milk.")
+                .thenStopWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName + " does not produce milk."))
+            )
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts("If animal weights over 100 tons?")
+                .whenFacts(facts -> facts.mammal && facts.weightInKg > 100000)
+                .thenProceedWith("Conclude, that the animal must live in water.")
+                .thenProceedWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName + " must live in water."))
+            )
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts("If animal is mammal and weights more than 2kg?")
+                .whenFacts(facts -> facts.mammal && facts.weightInKg > 2)
+                .thenProceedWith("Conclude, that the animal cannot fly.")
+                .thenProceedWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName + " cannot fly."))
+            );
+    }
+
+    static RuleBook<AnimalFacts, Result> grouped() {
+
+        return new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts("If there is no weight given?")
+                .whenFacts(facts -> facts.weightInKg <= 0)
+                .thenStopWith("Stop processing and give a hint to set the weight.")
+                .thenStopWith(outcome -> {
+                    outcome.result.addConclusion("A " + outcome.facts.animalName + " cannot be analyzed.");
+                    outcome.result.setHint("You must set a positive weight.");
+                })
+            )
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts("If animal is a mammal?")
+                .whenFacts(facts -> facts.mammal)
+                .thenGroupRules(group -> group
+                    .addRule(new Rule<AnimalFacts, Result>()
+                        .whenFacts("If mammal weights over 100 tons?")
+                        .whenFacts(facts -> facts.weightInKg > 100000)
+                        .thenStopWith("Conclude, that the animal must live in water.")
+                        .thenProceedWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName + " must live in water."))
+                    )
+                    .addRule(new Rule<AnimalFacts, Result>()
+                        .whenFacts("If mammal weights more than 2kg?")
+                        .whenFacts(facts -> facts.weightInKg > 2)
+                        .thenStopWith("Conclude, that the animal cannot fly.")
+                        .thenProceedWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName + " cannot fly."))
+                    ))
+            )
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts("If animal is no mammal?")
+                .whenFacts(facts -> !facts.mammal)
+                .thenGroupRules(group -> group
+                    .addRule(new Rule<AnimalFacts, Result>()
+                        .whenFacts("true")
+                        .whenFacts(facts -> true)
+                        .thenStopWith("Stop processing and conclude, that the animal does not give milk.")
+                        .thenStopWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName + " does not produce milk."))
+                    ))
+            );
+    }
+
+    static RuleBook<AnimalFacts, Result> outcomeConditions() {
+
+        return new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts("If animal weights more than 20 tons?")
+                .whenFacts(facts -> facts.weightInKg > 20000)
+                .thenProceedWith(outcome -> {
+                    outcome.result.addConclusion("A " + outcome.facts.animalName + " is not a fish.");
+                    outcome.result.setHint("super-heavy");
+                })
+            )
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts("If animal is not a mammal?")
+                .whenFacts(facts -> !facts.mammal)
+                .whenOutcome("and if it is super heavy, like whales only")
+                .whenOutcome(outcome -> "super-heavy".equals(outcome.hint))
+                .thenStopWith("then something with the data is wrong!")
+                .thenStopWith(outcome -> outcome.result.setConclusion("The weight for " + outcome.facts.animalName + " is wrong!"))
+            );
+    }
+}
@@ -0,0 +1,152 @@
+package com.giraone.rules;
+
+import com.giraone.rules.RuleBookTest.AnimalFacts;
+import com.giraone.rules.RuleBookTest.Result;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachedRuleBookTest {
+
+    private static final BiConsumer<Result, Result> COPY_RESULT = (from, to) -> {
+        to.conclusion = from.conclusion;
+        to.hint = from.hint;
+    };
+
+    @ParameterizedTest
+    @CsvSource({
+        "virus,true,0",
+        "sea hawk,false,1",
+        "cow,true,750",
+        "whale,true,200000",
+        "whale shark,false,200000"
+    })
+    void applyOnFacts_givesSameResultAsRuleBook(String animal, boolean mammal, int weightInKg) {
+
+        for (RuleBook<AnimalFacts, Result> ruleBook : AnimalRuleBooks.all()) {
+
+            // arrange
+            CachedRuleBook<AnimalFacts, Result> cachedRuleBook = ruleBook.compile()
+                .cached(facts -> facts.animalName + "/" + facts.mammal + "/" + facts.weightInKg, 10, Result::new, COPY_RESULT);
+            Result expected = ruleBook.applyOnFacts(new AnimalFacts(animal, mammal, weightInKg), new Result()).result;
+
+            // act
+            Result miss = cachedRuleBook.applyOnFacts(new AnimalFacts(animal, mammal, weightInKg), new Result()).result;
+            Result hit = cachedRuleBook.applyOnFacts(new AnimalFacts(animal, mammal, weightInKg), new Result()).result;
+
+            // assert
+            for (Result result : new Result[] { miss, hit }) {
+                assertThat(result.conclusion).isEqualTo(expected.conclusion);
+                assertThat(result.hint).isEqualTo(expected.hint);
+            }
+            assertThat(miss).isNotSameAs(hit);
+            assertThat(cachedRuleBook.getMissCount()).isEqualTo(1);
+            assertThat(cachedRuleBook.getHitCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void applyOnFacts_evaluatesRulesOnlyOnMiss() {
+
+        // arrange
+        AtomicInteger evaluations = new AtomicInteger();
+        CachedRuleBook<AnimalFacts, Result> cachedRuleBook = new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .thenProceedWith(outcome -> {
+                    evaluations.incrementAndGet();
+                    outcome.result.addConclusion("weight " + outcome.facts.weightInKg);
+                }))
+            .compile()
+            .cached(facts -> facts.weightInKg, 2, Result::new, COPY_RESULT);
+
+        // act
+        for (int i = 0; i < 10; i++) {
+            cachedRuleBook.applyOnFacts(new AnimalFacts("cow", true, 750), new Result());
+        }
+        Result result = cachedRuleBook.applyOnFacts(new AnimalFacts("cow", true, 750), new Result().addConclusion("old"))
+            .result;
+
+        // assert
+        assertThat(evaluations).hasValue(1);
+        assertThat(result.conclusion).isEqualTo("weight 750");
+        assertThat(cachedRuleBook.size()).isEqualTo(1);
+
+        cachedRuleBook.invalidateAll();
+        cachedRuleBook.applyOnFacts(new AnimalFacts("cow", true, 750), new Result());
+        assertThat(evaluations).hasValue(2);
+    }
+
+    @Test
+    void applyOnFacts_passesNullFactsAndKeysWithoutCaching() {
+
+        // arrange
+        CachedRuleBook<AnimalFacts, Result> cachedRuleBook = new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> facts == null)
+                .thenStopWith(outcome -> outcome.result.setHint("You must give facts.")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> facts.animalName == null)
+                .thenStopWith(outcome -> outcome.result.setHint("You must give a name.")))
+            .compile()
+            .cached(facts -> facts.animalName, 10, Result::new, COPY_RESULT);
+        Result nullFactsResult = new Result();
+
+        // act
+        Outcome<AnimalFacts, Result> nullFacts = cachedRuleBook.applyOnFacts(null, nullFactsResult);
+        Outcome<AnimalFacts, Result> nullKey = cachedRuleBook.applyOnFacts(new AnimalFacts(null, true, 750), new Result());
+
+        // assert
+        assertThat(nullFacts.result).isSameAs(nullFactsResult);
+        assertThat(nullFacts.result.hint).isEqualTo("You must give facts.");
+        assertThat(nullKey.result.hint).isEqualTo("You must give a name.");
+        assertThat(cachedRuleBook.size()).isZero();
+        assertThat(cachedRuleBook.getMissCount()).isZero();
+    }
+
+    @Test
+    void boundedCache_admitsNewKeyOnlyWhenUsedMoreOftenThanVictim() {
+
+        // arrange
+        BoundedCache<String, String> cache = new BoundedCache<>(2);
+        for (int i = 0; i < 5; i++) {
+            cache.get("a");
+            cache.get("b");
+        }
+        cache.put("a", "A");
+        cache.put("b", "B");
+
+        // act + assert
+        cache.get("c");
+        assertThat(cache.put("c", "C")).isFalse();
+        assertThat(cache.get("a")).isEqualTo("A");
+        assertThat(cache.get("b")).isEqualTo("B");
+
+        for (int i = 0; i < 10; i++) {
+            cache.get("c");
+        }
+        assertThat(cache.put("c", "C")).isTrue();
+        assertThat(cache.size()).isEqualTo(2);
+        // "a" is the least recently used one
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isEqualTo("B");
+        assertThat(cache.get("c")).isEqualTo("C");
+    }
+
+    @Test
+    void boundedCache_rejectsNullKey() {
+
+        // arrange
+        BoundedCache<String, String> cache = new BoundedCache<>(2);
+
+        // act + assert
+        assertThatThrownBy(() -> cache.get(null)).isInstanceOf(NullPointerException.class);
+        assertThatThrownBy(() -> cache.put(null, "null")).isInstanceOf(NullPointerException.class);
+        assertThat(cache.size()).isZero();
+    }
+}
@@ -0,0 +1,81 @@
+package com.giraone.rules;
+
+import com.giraone.rules.RuleBookTest.AnimalFacts;
+import com.giraone.rules.RuleBookTest.Result;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColumnarEvaluationTest {
+
+    @Test
+    void applyOnAll_columnarGivesSameResultsAsFactsByFacts() {
+
+        // arrange
+        List<AnimalFacts> animalFacts = new ArrayList<>();
+        for (int i = 0; i < 2 * ColumnarEvaluation.CHUNK_SIZE + 77; i++) {
+            animalFacts.add(new AnimalFacts("animal" + i, i % 3 != 0, i % 5 == 0 ? 200000 : i % 7));
+        }
+
+        for (RuleBook<AnimalFacts, Result> ruleBook : AnimalRuleBooks.all()) {
+            CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = ruleBook.compile();
+            List<Outcome<AnimalFacts, Result>> expected = compiledRuleBook.applyOnAll(animalFacts, Result::new);
+
+            // act
+            List<Outcome<AnimalFacts, Result>> outcomes = compiledRuleBook.applyOnAllColumnar(animalFacts, Result::new);
+            List<Outcome<AnimalFacts, Result>> fromLinkedList = compiledRuleBook.applyOnAllColumnar(new LinkedList<>(animalFacts), Result::new);
+
+            // assert
+            assertThat(outcomes).extracting(outcome -> outcome.facts).containsExactlyElementsOf(animalFacts);
+            assertThat(fromLinkedList).extracting(outcome -> outcome.facts).containsExactlyElementsOf(animalFacts);
+            assertThat(outcomes).extracting(outcome -> outcome.result.conclusion)
+                .containsExactlyElementsOf(expected.stream().map(outcome -> outcome.result.conclusion).collect(Collectors.toList()));
+            assertThat(outcomes).extracting(outcome -> outcome.result.hint)
+                .containsExactlyElementsOf(expected.stream().map(outcome -> outcome.result.hint).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void applyOnAll_columnarTestsRangeRulesLikeFactsByFacts() {
+
+        // arrange
+        List<AnimalFacts> animalFacts = new ArrayList<>();
+        for (int i = 0; i < ColumnarEvaluation.CHUNK_SIZE + 77; i++) {
+            animalFacts.add(new AnimalFacts("animal" + i, i % 3 != 0, i % 5 == 0 ? 200000 : i % 7));
+        }
+        ToLongFunction<AnimalFacts> weight = facts -> facts.weightInKg;
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFactsInRange(weight, Long.MIN_VALUE, 0)
+                .thenStopWith(outcome -> outcome.result.setHint("You must set a positive weight.")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> facts.mammal)
+                .thenGroupRules(group -> group
+                    .addRule(new Rule<AnimalFacts, Result>()
+                        .whenFactsInRange(weight, 100001, Long.MAX_VALUE)
+                        .thenProceedWith(outcome -> outcome.result.addConclusion("heavy")))
+                    .addRule(new Rule<AnimalFacts, Result>()
+                        .whenFactsInRange(weight, 3, 5)
+                        .thenStopWith(outcome -> outcome.result.addConclusion("light")))))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFactsInRange(weight, 1, 6)
+                .thenProceedWith(outcome -> outcome.result.addConclusion("small")))
+            .compile();
+        List<Outcome<AnimalFacts, Result>> expected = compiledRuleBook.applyOnAll(animalFacts, Result::new);
+
+        // act
+        List<Outcome<AnimalFacts, Result>> outcomes = compiledRuleBook.applyOnAllColumnar(animalFacts, Result::new);
+
+        // assert
+        assertThat(outcomes).extracting(outcome -> outcome.result.conclusion)
+            .containsExactlyElementsOf(expected.stream().map(outcome -> outcome.result.conclusion).collect(Collectors.toList()));
+        assertThat(outcomes).extracting(outcome -> outcome.result.hint)
+            .containsExactlyElementsOf(expected.stream().map(outcome -> outcome.result.hint).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,409 @@
+package com.giraone.rules;
+
+import com.giraone.rules.RuleBookTest.AnimalFacts;
+import com.giraone.rules.RuleBookTest.Result;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class CompiledRuleBookTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "virus,true,0",
+        "sea hawk,false,1",
+        "cow,true,750",
+        "whale,true,200000",
+        "whale shark,false,200000"
+    })
+    void applyOnFacts_givesSameResultAsRuleBook(String animal, boolean mammal, int weightInKg) {
+
+        for (RuleBook<AnimalFacts, Result> ruleBook : AnimalRuleBooks.all()) {
+
+            // arrange
+            CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = ruleBook.compile();
+            Result expected = ruleBook.applyOnFacts(new AnimalFacts(animal, mammal, weightInKg), new Result()).result;
+
+            // act
+            Outcome<AnimalFacts, Result> outcome = compiledRuleBook.applyOnFacts(new AnimalFacts(animal, mammal, weightInKg), new Result());
+
+            // assert
+            assertThat(outcome).isNotNull();
+            assertThat(outcome.result.conclusion).isEqualTo(expected.conclusion);
+            assertThat(outcome.result.hint).isEqualTo(expected.hint);
+        }
+    }
+
+    @Test
+    void compile_isNotAffectedByLaterAddedRules() {
+
+        // arrange
+        RuleBook<AnimalFacts, Result> ruleBook = AnimalRuleBooks.simple();
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = ruleBook.compile();
+        ruleBook.addRule(new Rule<AnimalFacts, Result>()
+            .whenFacts(facts -> true)
+            .thenProceedWith(outcome -> outcome.result.setHint("added later")));
+
+        // act
+        Outcome<AnimalFacts, Result> outcome = compiledRuleBook.applyOnFacts(new AnimalFacts("cow", true, 750), new Result());
+
+        // assert
+        assertThat(outcome.result.conclusion).isEqualTo("A cow cannot fly.");
+        assertThat(outcome.result.hint).isNull();
+    }
+
+    @Test
+    void compile_failsOnRuleWithoutThen() {
+
+        // arrange
+        RuleBook<AnimalFacts, Result> ruleBook = new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts("incomplete")
+                .whenFacts(facts -> true));
+
+        // act + assert
+        assertThatThrownBy(ruleBook::compile)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("incomplete");
+    }
+
+    @Test
+    void applyOnFacts_canBeSharedBetweenThreads() throws Exception {
+
+        // arrange
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = AnimalRuleBooks.grouped().compile();
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        List<Future<String>> futures = new ArrayList<>();
+
+        // act
+        try {
+            for (int i = 0; i < 1000; i++) {
+                final int weightInKg = i % 2 == 0 ? 750 : 200000;
+                futures.add(executorService.submit(() ->
+                    compiledRuleBook.applyOnFacts(new AnimalFacts("animal", true, weightInKg), new Result()).result.conclusion));
+            }
+            // assert
+            for (int i = 0; i < futures.size(); i++) {
+                assertThat(futures.get(i).get()).isEqualTo(i % 2 == 0 ? "A animal cannot fly." : "A animal must live in water. A animal cannot fly.");
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    void applyOnFacts_withContextCanBeReused() {
+
+        // arrange
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = AnimalRuleBooks.simple().compile();
+        EvaluationContext<AnimalFacts, Result> context = compiledRuleBook.newContext();
+
+        // act + assert
+        Outcome<AnimalFacts, Result> seaHawk = compiledRuleBook.applyOnFacts(context, new AnimalFacts("sea hawk", false, 1), new Result());
+        assertThat(seaHawk.result.conclusion).isEqualTo("A sea hawk does not produce milk.");
+        assertThat(context.isStopped()).isTrue();
+
+        Outcome<AnimalFacts, Result> outcome = compiledRuleBook.applyOnFacts(context, new AnimalFacts("whale", true, 200000), new Result());
+        assertThat(outcome).isSameAs(context.getOutcome());
+        assertThat(outcome.facts.animalName).isEqualTo("whale");
+        assertThat(outcome.result.conclusion).isEqualTo("A whale must live in water. A whale cannot fly.");
+        assertThat(context.isStopped()).isFalse();
+        assertThat(seaHawk.facts.animalName).as("an outcome is never overwritten").isEqualTo("sea hawk");
+
+        Result result = outcome.result.setConclusion(null);
+        assertThat(compiledRuleBook.applyOnFacts(context, outcome.facts, result)).isSameAs(outcome);
+        assertThat(outcome.result.conclusion).isEqualTo("A whale must live in water. A whale cannot fly.");
+    }
+
+    @Test
+    void applyOnFacts_withContextDoesNotAllocate() {
+
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(allocationMXBean.isThreadAllocatedMemorySupported() && allocationMXBean.isThreadAllocatedMemoryEnabled());
+
+        // arrange
+        CompiledRuleBook<AnimalFacts, int[]> compiledRuleBook = new RuleBook<AnimalFacts, int[]>()
+            .addRule(new Rule<AnimalFacts, int[]>()
+                .whenFacts(facts -> facts.mammal)
+                .thenGroupRules(group -> group
+                    .addRule(new Rule<AnimalFacts, int[]>()
+                        .whenFacts(facts -> facts.weightInKg > 100000)
+                        .thenProceedWith(outcome -> outcome.result[0]++))
+                    .addRule(new Rule<AnimalFacts, int[]>()
+                        .whenFacts(facts -> facts.weightInKg > 2)
+                        .thenStopWith(outcome -> outcome.result[1]++))))
+            .compile();
+        EvaluationContext<AnimalFacts, int[]> context = compiledRuleBook.newContext();
+        AnimalFacts animalFacts = new AnimalFacts("whale", true, 200000);
+        int[] result = new int[2];
+        for (int i = 0; i < 100_000; i++) {
+            compiledRuleBook.applyOnFacts(context, animalFacts, result);
+        }
+        long threadId = Thread.currentThread().getId();
+
+        // act
+        long before = allocationMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            compiledRuleBook.applyOnFacts(context, animalFacts, result);
+        }
+        long allocated = allocationMXBean.getThreadAllocatedBytes(threadId) - before;
+
+        // assert - allow a few bytes for the measurement itself, but nothing per evaluation
+        assertThat(allocated).isLessThan(10_000L);
+        assertThat(result).containsExactly(200_000, 200_000);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "virus,true,0",
+        "sea hawk,false,1",
+        "whale,true,200000"
+    })
+    void applyOnFacts_withListenerLogsLikeRuleBook(String animal, boolean mammal, int weightInKg) {
+
+        // arrange
+        RuleBook<AnimalFacts, Result> ruleBook = AnimalRuleBooks.grouped();
+        List<String> expectedLog = new ArrayList<>();
+        ruleBook.applyOnFacts(new AnimalFacts(animal, mammal, weightInKg), new Result(),
+            (description, value) -> expectedLog.add("WHEN " + description + " " + value),
+            (description, value) -> expectedLog.add("THEN " + description + " " + value));
+        List<String> log = new ArrayList<>();
+        EvaluationListener listener = EvaluationListener.of(
+            (description, value) -> log.add("WHEN " + description + " " + value),
+            (description, value) -> log.add("THEN " + description + " " + value));
+
+        // act
+        ruleBook.compile().applyOnFacts(new AnimalFacts(animal, mammal, weightInKg), new Result(), listener);
+
+        // assert
+        assertThat(log).isNotEmpty().isEqualTo(expectedLog);
+    }
+
+    @Test
+    void applyOnFacts_withListenerReportsRuleIds() {
+
+        // arrange
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> facts.weightInKg <= 0)
+                .thenStopWith(outcome -> outcome.result.setHint("You must set a positive weight.")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .id("mammal")
+                .whenFacts(facts -> facts.mammal)
+                .thenGroupRules(group -> group
+                    .addRule(new Rule<AnimalFacts, Result>()
+                        .whenFacts(facts -> facts.weightInKg > 2)
+                        .thenStopWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName + " cannot fly.")))))
+            .compile();
+        List<String> log = new ArrayList<>();
+        EvaluationListener listener = new EvaluationListener() {
+            @Override
+            public void onWhenFacts(RuleInfo rule, boolean value) {
+                log.add(rule.getGroupPath() + rule.getId() + "=" + value);
+            }
+
+            @Override
+            public void onThen(RuleInfo rule, boolean stopped) {
+                log.add(rule.getId() + " stopped=" + stopped);
+            }
+
+            @Override
+            public void onEvaluationStart() {
+                log.add("start");
+            }
+
+            @Override
+            public void onEvaluationEnd(boolean stopped) {
+                log.add("end stopped=" + stopped);
+            }
+
+            @Override
+            public void onGroupEnter(RuleInfo group) {
+                log.add("enter " + group.getId());
+            }
+
+            @Override
+            public void onGroupExit(RuleInfo group, boolean stopped) {
+                log.add("exit " + group.getId() + " stopped=" + stopped);
+            }
+        };
+
+        // act
+        compiledRuleBook.applyOnFacts(compiledRuleBook.newContext(listener), new AnimalFacts("cow", true, 750), new Result());
+
+        // assert
+        assertThat(log).containsExactly("start", "[]0=false", "[]mammal=true", "enter mammal", "[mammal]mammal.0=true",
+            "mammal.0 stopped=true", "exit mammal stopped=true", "end stopped=true");
+        assertThat(compiledRuleBook.getRuleInfos()).extracting(RuleInfo::getIndex).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void compile_failsOnDuplicateIds() {
+
+        // arrange
+        RuleBook<AnimalFacts, Result> ruleBook = AnimalRuleBooks.simple()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .id("1")
+                .thenProceedWith(outcome -> outcome.result.setHint("duplicate")));
+
+        // act + assert
+        assertThatThrownBy(ruleBook::compile)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("not unique");
+    }
+
+    @Test
+    void applyOnAll_keepsOrderOfFacts() {
+
+        // arrange
+        RuleBook<AnimalFacts, Result> ruleBook = AnimalRuleBooks.simple();
+        AnimalFacts[] animalFacts = {
+            new AnimalFacts("virus", true, 0),
+            new AnimalFacts("sea hawk", false, 1),
+            new AnimalFacts("cow", true, 750),
+            new AnimalFacts("whale", true, 200000)
+        };
+
+        // act
+        List<Outcome<AnimalFacts, Result>> outcomesFromList = ruleBook.applyOnAll(Arrays.asList(animalFacts), Result::new);
+        List<Outcome<AnimalFacts, Result>> outcomesFromArray = ruleBook.compile().applyOnAll(animalFacts, Result::new);
+
+        // assert
+        for (List<Outcome<AnimalFacts, Result>> outcomes : Arrays.asList(outcomesFromList, outcomesFromArray)) {
+            assertThat(outcomes).extracting(outcome -> outcome.facts).containsExactly(animalFacts);
+            assertThat(outcomes).extracting(outcome -> outcome.result.conclusion).containsExactly(
+                "A virus cannot be analyzed.",
+                "A sea hawk does not produce milk.",
+                "A cow cannot fly.",
+                "A whale must live in water. A whale cannot fly.");
+        }
+    }
+
+    @Test
+    void applyOnFacts_evaluatesSharedConditionsOnlyOnce() {
+
+        // arrange
+        AtomicInteger isMammalCalls = new AtomicInteger();
+        Predicate<AnimalFacts> isMammal = facts -> {
+            isMammalCalls.incrementAndGet();
+            return facts.mammal;
+        };
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(isMammal)
+                .thenProceedWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName + " produces milk.")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> facts.weightInKg > 2)
+                .thenGroupRules(group -> group
+                    .addRule(new Rule<AnimalFacts, Result>()
+                        .whenFacts(isMammal)
+                        .thenStopWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName + " cannot fly.")))))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(isMammal.negate())
+                .thenProceedWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName + " does not produce milk.")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(isMammal)
+                .thenProceedWith(outcome -> outcome.result.setHint("not reached, when stopped")))
+            .compile();
+        EvaluationContext<AnimalFacts, Result> context = compiledRuleBook.newContext();
+
+        // act + assert
+        assertThat(compiledRuleBook.applyOnFacts(context, new AnimalFacts("cow", true, 750), new Result()).result.conclusion)
+            .isEqualTo("A cow produces milk. A cow cannot fly.");
+        assertThat(isMammalCalls).hasValue(1);
+
+        assertThat(compiledRuleBook.applyOnFacts(context, new AnimalFacts("sea hawk", false, 1), new Result()).result.conclusion)
+            .isEqualTo("A sea hawk does not produce milk.");
+        assertThat(isMammalCalls).hasValue(3); // the negated predicate is not the shared one
+
+        assertThat(compiledRuleBook.applyOnFacts(new AnimalFacts("mouse", true, 1), new Result()).result.hint)
+            .isEqualTo("not reached, when stopped");
+        assertThat(isMammalCalls).hasValue(5);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "virus,true,0",
+        "sea hawk,false,1",
+        "cow,true,750",
+        "whale,true,200000"
+    })
+    void applyOnFacts_extractsPrimitiveValuesOnlyOnce(String animal, boolean mammal, int weightInKg) {
+
+        // arrange
+        AtomicInteger weightCalls = new AtomicInteger();
+        AtomicInteger mammalCalls = new AtomicInteger();
+        ToIntFunction<AnimalFacts> weight = facts -> {
+            weightCalls.incrementAndGet();
+            return facts.weightInKg;
+        };
+        Predicate<AnimalFacts> isMammal = facts -> {
+            mammalCalls.incrementAndGet();
+            return facts.mammal;
+        };
+        RuleBook<AnimalFacts, Result> ruleBook = new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenInt(weight, value -> value <= 0)
+                .thenStopWith(outcome -> outcome.result.setHint("You must set a positive weight.")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenBoolean(isMammal, false)
+                .thenProceedWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName + " does not produce milk.")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenBoolean(isMammal, true)
+                .thenGroupRules(group -> group
+                    .addRule(new Rule<AnimalFacts, Result>()
+                        .whenInt(weight, value -> value > 100000)
+                        .thenProceedWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName + " must live in water.")))
+                    .addRule(new Rule<AnimalFacts, Result>()
+                        .whenInt(weight, value -> value > 2)
+                        .thenProceedWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName + " cannot fly.")))))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenDouble(facts -> facts.weightInKg / 1000.0, tons -> tons > 0.5)
+                .thenProceedWith(outcome -> outcome.result.setHint("heavy")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenLong(facts -> facts.weightInKg, value -> value > 0)
+                .thenProceedWith(outcome -> outcome.result.addConclusion("Done.")));
+        Result expected = ruleBook.applyOnFacts(new AnimalFacts(animal, mammal, weightInKg), new Result()).result;
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = ruleBook.compile();
+        weightCalls.set(0);
+        mammalCalls.set(0);
+
+        // act
+        Result result = compiledRuleBook.applyOnFacts(new AnimalFacts(animal, mammal, weightInKg), new Result()).result;
+
+        // assert
+        assertThat(result.conclusion).isEqualTo(expected.conclusion);
+        assertThat(result.hint).isEqualTo(expected.hint);
+        assertThat(weightCalls).hasValue(1);
+        assertThat(mammalCalls).hasValue(weightInKg > 0 ? 1 : 0);
+    }
+
+    @Test
+    void applyOnFacts_failsWithContextOfOtherRuleBook() {
+
+        // arrange
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = AnimalRuleBooks.simple().compile();
+        EvaluationContext<AnimalFacts, Result> context = AnimalRuleBooks.simple().compile().newContext();
+
+        // act + assert
+        assertThatThrownBy(() -> compiledRuleBook.applyOnFacts(context, new AnimalFacts("cow", true, 750), new Result()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
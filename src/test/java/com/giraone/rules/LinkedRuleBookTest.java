@@ -0,0 +1,146 @@
+package com.giraone.rules;
+
+import com.giraone.rules.RuleBookTest.AnimalFacts;
+import com.giraone.rules.RuleBookTest.Result;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LinkedRuleBookTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "virus,true,0",
+        "sea hawk,false,1",
+        "cow,true,750",
+        "whale,true,200000",
+        "whale shark,false,200000"
+    })
+    void applyOnFacts_givesSameResultAsRuleBook(String animal, boolean mammal, int weightInKg) {
+
+        for (RuleBook<AnimalFacts, Result> ruleBook : AnimalRuleBooks.all()) {
+
+            // arrange
+            LinkedRuleBook<AnimalFacts, Result> linkedRuleBook = ruleBook.compile().link();
+            Result expected = ruleBook.applyOnFacts(new AnimalFacts(animal, mammal, weightInKg), new Result()).result;
+
+            // act
+            Outcome<AnimalFacts, Result> outcome = linkedRuleBook.applyOnFacts(new AnimalFacts(animal, mammal, weightInKg), new Result());
+
+            // assert
+            assertThat(outcome.result.conclusion).isEqualTo(expected.conclusion);
+            assertThat(outcome.result.hint).isEqualTo(expected.hint);
+        }
+    }
+
+    @Test
+    void applyOnFacts_appliesRulesOfMoreThanOneChain() {
+
+        // arrange
+        RuleBook<AnimalFacts, Result> ruleBook = new RuleBook<>();
+        for (int i = 0; i < 2 * LinkedRuleBook.CHAIN_LENGTH + 3; i++) {
+            final int weight = i;
+            ruleBook.addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> facts.weightInKg == weight)
+                .thenStopWith(outcome -> outcome.result.setConclusion("rule " + weight)));
+        }
+        LinkedRuleBook<AnimalFacts, Result> linkedRuleBook = ruleBook.compile().link();
+
+        // act + assert
+        for (int weight : new int[] { 0, LinkedRuleBook.CHAIN_LENGTH, 2 * LinkedRuleBook.CHAIN_LENGTH + 2 }) {
+            assertThat(linkedRuleBook.applyOnFacts(new AnimalFacts("animal", true, weight), new Result()).result.conclusion)
+                .isEqualTo("rule " + weight);
+        }
+        assertThat(linkedRuleBook.applyOnFacts(new AnimalFacts("animal", true, -1), new Result()).result.conclusion).isNull();
+    }
+
+    @Test
+    void replaceRule_changesOnlyTheReplacedRule() {
+
+        // arrange
+        LinkedRuleBook<AnimalFacts, Result> linkedRuleBook = AnimalRuleBooks.simple().compile().link();
+        assertThat(linkedRuleBook.applyOnFacts(new AnimalFacts("cow", true, 750), new Result()).result.conclusion)
+            .isEqualTo("A cow cannot fly.");
+
+        // act
+        linkedRuleBook.replaceRule("3", new Rule<AnimalFacts, Result>()
+            .whenFacts(facts -> facts.weightInKg > 100)
+            .thenStopWith(outcome -> outcome.result.setConclusion("A " + outcome.facts.animalName + " is heavy.")));
+
+        // assert
+        assertThat(linkedRuleBook.applyOnFacts(new AnimalFacts("cow", true, 750), new Result()).result.conclusion)
+            .isEqualTo("A cow is heavy.");
+        assertThat(linkedRuleBook.applyOnFacts(new AnimalFacts("virus", true, 0), new Result()).result.hint)
+            .isEqualTo("You must set a positive weight.");
+    }
+
+    @Test
+    void replaceRule_canReplaceGroupAndGroupedRules() {
+
+        // arrange
+        LinkedRuleBook<AnimalFacts, Result> linkedRuleBook = AnimalRuleBooks.simple().compile().link();
+
+        // act
+        linkedRuleBook.replaceRule("3", new Rule<AnimalFacts, Result>()
+            .whenFacts(facts -> facts.weightInKg > 100)
+            .thenGroupRules(group -> group
+                .addRule(new Rule<AnimalFacts, Result>()
+                    .whenFacts(facts -> facts.mammal)
+                    .thenStopWith(outcome -> outcome.result.setConclusion("A heavy mammal.")))));
+        linkedRuleBook.replaceRule("3.0", new Rule<AnimalFacts, Result>()
+            .whenFacts(facts -> facts.mammal)
+            .thenStopWith(outcome -> outcome.result.setConclusion("A big mammal.")));
+
+        // assert
+        assertThat(linkedRuleBook.applyOnFacts(new AnimalFacts("cow", true, 750), new Result()).result.conclusion)
+            .isEqualTo("A big mammal.");
+    }
+
+    @Test
+    void replaceRule_givesGroupedRulesNewIndexes() {
+
+        // arrange
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = AnimalRuleBooks.simple().compile();
+        int ruleCount = compiledRuleBook.getRuleInfos().size();
+        LinkedRuleBook<AnimalFacts, Result> linkedRuleBook = compiledRuleBook.link();
+
+        // act
+        linkedRuleBook.replaceRule("3", new Rule<AnimalFacts, Result>()
+            .thenGroupRules(group -> group
+                .addRule(new Rule<AnimalFacts, Result>()
+                    .whenFacts(facts -> facts.mammal)
+                    .thenStopWith(outcome -> outcome.result.setConclusion("A mammal.")))
+                .addRule(new Rule<AnimalFacts, Result>()
+                    .whenFacts(facts -> facts.weightInKg > 100)
+                    .thenStopWith(outcome -> outcome.result.setConclusion("A heavy animal.")))));
+        linkedRuleBook.replaceRule("3.1", new Rule<AnimalFacts, Result>()
+            .thenGroupRules(group -> group
+                .addRule(new Rule<AnimalFacts, Result>()
+                    .whenFacts(facts -> facts.weightInKg > 1000)
+                    .thenStopWith(outcome -> outcome.result.setConclusion("A very heavy animal.")))));
+
+        // assert
+        assertThat(linkedRuleBook.getRuleInfos()).extracting(RuleInfo::getIndex).doesNotHaveDuplicates();
+        assertThat(linkedRuleBook.getRuleInfos()).filteredOn(info -> info.getId().startsWith("3."))
+            .extracting(info -> info.getId() + "=" + info.getIndex())
+            .containsExactly("3.0=" + ruleCount, "3.1=" + (ruleCount + 1), "3.1.0=" + (ruleCount + 2));
+    }
+
+    @Test
+    void replaceRule_failsOnUnknownIdOrIncompleteRule() {
+
+        // arrange
+        LinkedRuleBook<AnimalFacts, Result> linkedRuleBook = AnimalRuleBooks.simple().compile().link();
+
+        // act + assert
+        assertThatThrownBy(() -> linkedRuleBook.replaceRule("unknown", new Rule<AnimalFacts, Result>()
+            .thenStopWith(outcome -> outcome.result.setHint("unknown"))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> linkedRuleBook.replaceRule("0", new Rule<AnimalFacts, Result>()
+            .whenFacts(facts -> true)))
+            .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,163 @@
+package com.giraone.rules;
+
+import com.giraone.rules.RuleBookTest.Result;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedFactsTest {
+
+    // name (10), mammal (1), weight (8), line separator (1)
+    private static final int RECORD_LENGTH = 20;
+
+    static class MappedAnimal extends MappedRecord {
+
+        String animalName() {
+            return getString(0, 10, StandardCharsets.US_ASCII);
+        }
+
+        boolean isMammal() {
+            return getByte(10) == 'Y';
+        }
+
+        long weightInKg() {
+            return getAsciiLong(11, 8);
+        }
+    }
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void applyOnAll_evaluatesEachRecordWithFlyweight() throws IOException {
+
+        // arrange
+        Path file = tempDir.resolve("animals.txt");
+        Files.write(file, (
+            "virus     Y       0\n" +
+            "sea hawk  N       1\n" +
+            "cow       Y     750\n" +
+            "whale     Y  200000\n").getBytes(StandardCharsets.US_ASCII));
+        CompiledRuleBook<MappedAnimal, Result> compiledRuleBook = new RuleBook<MappedAnimal, Result>()
+            .addRule(new Rule<MappedAnimal, Result>()
+                .whenLong(MappedAnimal::weightInKg, weight -> weight <= 0)
+                .thenStopWith(outcome -> outcome.result.setHint("You must set a positive weight.")))
+            .addRule(new Rule<MappedAnimal, Result>()
+                .whenBoolean(MappedAnimal::isMammal, true)
+                .thenGroupRules(group -> group
+                    .addRule(new Rule<MappedAnimal, Result>()
+                        .whenLong(MappedAnimal::weightInKg, weight -> weight > 100000)
+                        .thenProceedWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName() + " must live in water.")))
+                    .addRule(new Rule<MappedAnimal, Result>()
+                        .whenLong(MappedAnimal::weightInKg, weight -> weight > 2)
+                        .thenProceedWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName() + " cannot fly.")))))
+            .compile();
+        List<String> results = new ArrayList<>();
+
+        // act
+        MappedFacts<MappedAnimal> mappedFacts = MappedFacts.map(file, RECORD_LENGTH, MappedAnimal::new);
+        mappedFacts.applyOnAll(compiledRuleBook, Result::new,
+            outcome -> results.add(outcome.facts.getRecordNumber() + ": " + outcome.result.conclusion + " / " + outcome.result.hint));
+
+        // assert
+        assertThat(mappedFacts.size()).isEqualTo(4);
+        assertThat(results).containsExactly(
+            "0: null / You must set a positive weight.",
+            "1: null / null",
+            "2: A cow cannot fly. / null",
+            "3: A whale must live in water. A whale cannot fly. / null");
+    }
+
+    @Test
+    void applyOnAll_withOneResultReusesOutcome() throws IOException {
+
+        // arrange
+        Path file = tempDir.resolve("animals.txt");
+        Files.write(file, (
+            "virus     Y       0\n" +
+            "sea hawk  N       1\n" +
+            "cow       Y     750\n").getBytes(StandardCharsets.US_ASCII));
+        CompiledRuleBook<MappedAnimal, Result> compiledRuleBook = new RuleBook<MappedAnimal, Result>()
+            .addRule(new Rule<MappedAnimal, Result>()
+                .whenLong(MappedAnimal::weightInKg, weight -> weight <= 0)
+                .thenStopWith(outcome -> outcome.result.setHint("You must set a positive weight.")))
+            .addRule(new Rule<MappedAnimal, Result>()
+                .whenBoolean(MappedAnimal::isMammal, true)
+                .thenProceedWith(outcome -> outcome.result.addConclusion("mammal")))
+            .compile();
+        Result result = new Result();
+        List<String> results = new ArrayList<>();
+        Set<Outcome<MappedAnimal, Result>> outcomes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        // act
+        MappedFacts.map(file, RECORD_LENGTH, MappedAnimal::new).applyOnAll(compiledRuleBook, result,
+            r -> r.setConclusion(null).setHint(null),
+            outcome -> {
+                outcomes.add(outcome);
+                results.add(outcome.facts.getRecordNumber() + ": " + outcome.result.conclusion + " / " + outcome.result.hint);
+            });
+
+        // assert
+        assertThat(results).containsExactly(
+            "0: null / You must set a positive weight.",
+            "1: null / null",
+            "2: mammal / null");
+        assertThat(outcomes).hasSize(1);
+        assertThat(outcomes.iterator().next().result).isSameAs(result);
+    }
+
+    @Test
+    void forEach_readsRecordsAcrossRegions() throws IOException {
+
+        // arrange
+        Path file = tempDir.resolve("numbers.bin");
+        ByteBuffer buffer = ByteBuffer.allocate(1000 * 12).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 1000; i++) {
+            buffer.putInt(i).putDouble(i / 2.0);
+        }
+        Files.write(file, buffer.array());
+        List<Long> sums = new ArrayList<>();
+
+        // act
+        MappedFacts<MappedRecord> mappedFacts = MappedFacts.map(file, 12, ByteOrder.LITTLE_ENDIAN, () -> new MappedRecord() { }, 100);
+        long[] sum = new long[1];
+        mappedFacts.forEach(record -> {
+            assertThat(record.getInt(0)).isEqualTo(record.getRecordNumber());
+            assertThat(record.getDouble(4)).isEqualTo(record.getRecordNumber() / 2.0);
+            sum[0] += record.getInt(0);
+        });
+        sums.add(sum[0]);
+        sum[0] = 0;
+        mappedFacts.forEach(95, 105, record -> sum[0] += record.getInt(0));
+        sums.add(sum[0]);
+
+        // assert
+        assertThat(sums).containsExactly(999L * 1000 / 2, 995L);
+    }
+
+    @Test
+    void map_failsOnPartialRecord() throws IOException {
+
+        // arrange
+        Path file = tempDir.resolve("partial.txt");
+        Files.write(file, new byte[RECORD_LENGTH + 1]);
+
+        // act + assert
+        assertThatThrownBy(() -> MappedFacts.map(file, RECORD_LENGTH, MappedAnimal::new))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,101 @@
+package com.giraone.rules;
+
+import com.giraone.rules.RuleBookTest.AnimalFacts;
+import com.giraone.rules.RuleBookTest.Result;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemoizedPredicateTest {
+
+    @Test
+    void applyOnFacts_evaluatesMemoizedPredicateOncePerKey() {
+
+        // arrange
+        AtomicInteger scans = new AtomicInteger();
+        MemoizedPredicate<AnimalFacts> isSeaAnimal = MemoizedPredicate.of(facts -> facts.animalName, facts -> {
+            scans.incrementAndGet();
+            return facts.animalName.matches(".*(sea|whale|shark).*");
+        }, 100);
+        AtomicInteger otherTests = new AtomicInteger();
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(isSeaAnimal)
+                .thenProceedWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName + " lives in water.")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> otherTests.incrementAndGet() > 0 && facts.weightInKg > 2)
+                .thenProceedWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName + " cannot fly.")))
+            .compile();
+
+        // act
+        Result whale = null;
+        for (int i = 0; i < 5; i++) {
+            whale = compiledRuleBook.applyOnFacts(new AnimalFacts("whale", true, 200000), new Result()).result;
+            compiledRuleBook.applyOnFacts(new AnimalFacts("cow", true, 750), new Result());
+        }
+        Result cow = compiledRuleBook.applyOnFacts(new AnimalFacts("cow", true, 750), new Result()).result;
+
+        // assert
+        assertThat(whale.conclusion).isEqualTo("A whale lives in water. A whale cannot fly.");
+        assertThat(cow.conclusion).isEqualTo("A cow cannot fly.");
+        assertThat(scans).hasValue(2);
+        assertThat(otherTests).hasValue(11);
+        assertThat(isSeaAnimal.getMissCount()).isEqualTo(2);
+        assertThat(isSeaAnimal.getHitCount()).isEqualTo(9);
+        assertThat(isSeaAnimal.size()).isEqualTo(2);
+    }
+
+    @Test
+    void test_evaluatesPredicateAgainAfterExpiry() {
+
+        // arrange
+        AtomicLong nanos = new AtomicLong();
+        AtomicInteger evaluations = new AtomicInteger();
+        Predicate<AnimalFacts> isHeavy = facts -> evaluations.incrementAndGet() > 0 && facts.weightInKg > 1000;
+        MemoizedPredicate<AnimalFacts> memoized = new MemoizedPredicate<>(facts -> facts.animalName, isHeavy,
+            new BoundedCache<>(10, TimeUnit.SECONDS.toNanos(60), nanos::get));
+        AnimalFacts whale = new AnimalFacts("whale", true, 200000);
+
+        // act + assert
+        assertThat(memoized.test(whale)).isTrue();
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        assertThat(memoized.test(whale)).isTrue();
+        assertThat(evaluations).hasValue(1);
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(memoized.test(whale)).isTrue();
+        assertThat(evaluations).hasValue(2);
+        assertThat(memoized.getMissCount()).isEqualTo(2);
+
+        memoized.invalidateAll();
+        assertThat(memoized.size()).isZero();
+    }
+
+    @Test
+    void test_passesNullFactsAndKeysWithoutCaching() {
+
+        // arrange
+        AtomicInteger tests = new AtomicInteger();
+        MemoizedPredicate<AnimalFacts> isUnknown = MemoizedPredicate.of(facts -> facts.animalName, facts -> {
+            tests.incrementAndGet();
+            return facts == null || facts.animalName == null;
+        }, 100);
+
+        // act
+        boolean nullFacts = isUnknown.test(null);
+        boolean nullKey = isUnknown.test(new AnimalFacts(null, true, 750));
+        isUnknown.test(null);
+
+        // assert
+        assertThat(nullFacts).isTrue();
+        assertThat(nullKey).isTrue();
+        assertThat(tests).hasValue(3);
+        assertThat(isUnknown.size()).isZero();
+        assertThat(isUnknown.getMissCount()).isZero();
+    }
+}
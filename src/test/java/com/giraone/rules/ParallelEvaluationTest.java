@@ -0,0 +1,133 @@
+package com.giraone.rules;
+
+import com.giraone.rules.RuleBookTest.AnimalFacts;
+import com.giraone.rules.RuleBookTest.Result;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParallelEvaluationTest {
+
+    @Test
+    void applyOnAll_inParallelKeepsOrderOfFacts() {
+
+        // arrange
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = AnimalRuleBooks.grouped().compile();
+        List<AnimalFacts> animalFacts = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            animalFacts.add(new AnimalFacts("animal" + i, i % 3 != 0, i % 5 == 0 ? 200000 : i % 7));
+        }
+        List<Outcome<AnimalFacts, Result>> expected = compiledRuleBook.applyOnAll(animalFacts, Result::new);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        // act
+        try {
+            List<Outcome<AnimalFacts, Result>> fromPool = compiledRuleBook.applyOnAllInParallel(animalFacts, Result::new, pool);
+            List<Outcome<AnimalFacts, Result>> fromExecutor = compiledRuleBook.applyOnAllInParallel(animalFacts, Result::new, executorService, 4);
+            List<Outcome<AnimalFacts, Result>> fromLinkedList = compiledRuleBook.applyOnAllInParallel(new LinkedList<>(animalFacts), Result::new, pool);
+
+            // assert
+            for (List<Outcome<AnimalFacts, Result>> outcomes : Arrays.asList(fromPool, fromExecutor, fromLinkedList)) {
+                assertThat(outcomes).extracting(outcome -> outcome.facts).containsExactlyElementsOf(animalFacts);
+                assertThat(outcomes).extracting(outcome -> outcome.result.conclusion)
+                    .containsExactlyElementsOf(expected.stream().map(outcome -> outcome.result.conclusion).collect(Collectors.toList()));
+            }
+        } finally {
+            pool.shutdown();
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    void applyOnAll_inParallelPropagatesExceptions() {
+
+        // arrange
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> facts.weightInKg == 42)
+                .thenStopWith(outcome -> {
+                    throw new IllegalArgumentException("unexpected weight");
+                }))
+            .compile();
+        List<AnimalFacts> animalFacts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            animalFacts.add(new AnimalFacts("animal" + i, true, i));
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+        // act + assert
+        try {
+            assertThatThrownBy(() -> compiledRuleBook.applyOnAllInParallel(animalFacts, Result::new, ForkJoinPool.commonPool()))
+                .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> compiledRuleBook.applyOnAllInParallel(animalFacts, Result::new, executorService, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    void applyOnFactsAsync_completesWithOutcome() throws Exception {
+
+        // arrange
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = AnimalRuleBooks.simple().compile();
+
+        // act
+        Outcome<AnimalFacts, Result> outcome = compiledRuleBook.applyOnFactsAsync(new AnimalFacts("cow", true, 750), new Result())
+            .get(10, TimeUnit.SECONDS);
+
+        // assert
+        assertThat(outcome.result.conclusion).isEqualTo("A cow cannot fly.");
+    }
+
+    @Test
+    void applyOnAllAsync_runsBlockingRulesConcurrently() throws Exception {
+
+        // arrange - every rule blocks until all facts are evaluated at the same time
+        int parallelFacts = 8;
+        CountDownLatch allStarted = new CountDownLatch(parallelFacts);
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> {
+                    allStarted.countDown();
+                    try {
+                        return allStarted.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                })
+                .thenStopWith(outcome -> outcome.result.addConclusion(outcome.facts.animalName)))
+            .compile();
+        List<AnimalFacts> animalFacts = new ArrayList<>();
+        for (int i = 0; i < parallelFacts; i++) {
+            animalFacts.add(new AnimalFacts("animal" + i, true, i));
+        }
+        ExecutorService executorService = Executors.newCachedThreadPool();
+
+        // act
+        try {
+            List<Outcome<AnimalFacts, Result>> outcomes = compiledRuleBook.applyOnAllAsync(animalFacts, Result::new, executorService)
+                .get(20, TimeUnit.SECONDS);
+
+            // assert
+            assertThat(outcomes).extracting(outcome -> outcome.result.conclusion)
+                .containsExactly("animal0", "animal1", "animal2", "animal3", "animal4", "animal5", "animal6", "animal7");
+        } finally {
+            executorService.shutdown();
+        }
+    }
+}
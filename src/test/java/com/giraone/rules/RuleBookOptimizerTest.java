@@ -0,0 +1,77 @@
+package com.giraone.rules;
+
+import com.giraone.rules.RuleBookTest.AnimalFacts;
+import com.giraone.rules.RuleBookTest.Result;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleBookOptimizerTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "virus,true,0",
+        "sea hawk,false,1",
+        "cow,true,750"
+    })
+    void compileOptimized_removesRulesThatCannotChangeOutcome(String animal, boolean mammal, int weightInKg) {
+
+        // arrange
+        RuleBook<AnimalFacts, Result> ruleBook = new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> facts.weightInKg <= 0)
+                .thenStopWith(outcome -> outcome.result.setHint("You must set a positive weight.")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .thenGroupRules(group -> group
+                    .addRule(new Rule<AnimalFacts, Result>()
+                        .whenFacts(facts -> facts.mammal)
+                        .thenProceedWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName + " produces milk.")))
+                    .addRule(new Rule<AnimalFacts, Result>()
+                        .whenFacts(Rule.always())
+                        .thenProceedWith(outcome -> outcome.result.addConclusion("It is an animal.")))))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> facts.weightInKg > 2)
+                .thenGroupRules(group -> group
+                    .addRule(new Rule<AnimalFacts, Result>()
+                        .whenFacts(Rule.always())
+                        .thenProceedWith(outcome -> outcome.result.addConclusion("It cannot fly.")))))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> facts.mammal)
+                .thenGroupRules(group -> { }))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(Rule.always())
+                .thenStopWith(outcome -> outcome.result.setHint("done")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> facts.mammal)
+                .thenProceedWith(outcome -> outcome.result.setHint("unreachable")));
+        Result expected = ruleBook.applyOnFacts(new AnimalFacts(animal, mammal, weightInKg), new Result()).result;
+
+        // act
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = ruleBook.compileOptimized();
+        Result result = compiledRuleBook.applyOnFacts(new AnimalFacts(animal, mammal, weightInKg), new Result()).result;
+        List<String> whenFacts = new ArrayList<>();
+        compiledRuleBook.applyOnFacts(new AnimalFacts(animal, mammal, weightInKg), new Result(), new EvaluationListener() {
+            @Override
+            public void onWhenFacts(RuleInfo rule, boolean value) {
+                whenFacts.add(rule.getId());
+            }
+        });
+
+        // assert
+        assertThat(result.conclusion).isEqualTo(expected.conclusion);
+        assertThat(result.hint).isEqualTo(expected.hint);
+        assertThat(compiledRuleBook.getOptimizations()).extracting(Optimization::toString).containsExactly(
+            "ALWAYS_TRUE_CONDITION_REMOVED 1.1", "GROUP_FLATTENED 1",
+            "ALWAYS_TRUE_CONDITION_REMOVED 2.0", "SINGLE_RULE_GROUP_MERGED 2",
+            "EMPTY_GROUP_REMOVED 3",
+            "ALWAYS_TRUE_CONDITION_REMOVED 4", "UNREACHABLE_RULE_REMOVED 5");
+        assertThat(compiledRuleBook.getRuleInfos()).extracting(RuleInfo::getId)
+            .containsExactly("0", "1", "1.0", "1.1", "2", "2.0", "3", "4", "5");
+        assertThat(whenFacts).as("the merged group tests its own condition").doesNotContain("2.0");
+        assertThat(ruleBook.compile().getOptimizations()).isEmpty();
+    }
+}
@@ -0,0 +1,76 @@
+package com.giraone.rules;
+
+import com.giraone.rules.RuleBookTest.AnimalFacts;
+import com.giraone.rules.RuleBookTest.Result;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleBookRegistryTest {
+
+    @Test
+    void publish_replacesCurrentVersion() {
+
+        // arrange
+        RuleBookRegistry<AnimalFacts, Result> registry = new RuleBookRegistry<>(AnimalRuleBooks.simple());
+        assertThat(registry.current().getNumber()).isEqualTo(1);
+
+        // act
+        RuleBookRegistry.Version<AnimalFacts, Result> version = registry.publish(conclusionRuleBook("new version", null));
+
+        // assert
+        assertThat(version.getNumber()).isEqualTo(2);
+        assertThat(registry.current()).isSameAs(version);
+        assertThat(registry.applyOnFacts(new AnimalFacts("cow", true, 750), new Result()).result.conclusion)
+            .isEqualTo("new version");
+    }
+
+    @Test
+    void applyOnFacts_finishesOnVersionItStartedWith() throws Exception {
+
+        // arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch published = new CountDownLatch(1);
+        RuleBookRegistry<AnimalFacts, Result> registry = new RuleBookRegistry<>(conclusionRuleBook("old version", () -> {
+            started.countDown();
+            await(published);
+        }));
+
+        // act
+        CompletableFuture<Outcome<AnimalFacts, Result>> inFlight = CompletableFuture.supplyAsync(
+            () -> registry.applyOnFacts(new AnimalFacts("cow", true, 750), new Result()));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        registry.publish(conclusionRuleBook("new version", null));
+        published.countDown();
+
+        // assert
+        assertThat(inFlight.get(5, TimeUnit.SECONDS).result.conclusion).isEqualTo("old version");
+        assertThat(registry.applyOnFacts(new AnimalFacts("cow", true, 750), new Result()).result.conclusion)
+            .isEqualTo("new version");
+    }
+
+    private static RuleBook<AnimalFacts, Result> conclusionRuleBook(String conclusion, Runnable action) {
+
+        return new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> true)
+                .thenStopWith(outcome -> {
+                    if (action != null) {
+                        action.run();
+                    }
+                    outcome.result.setConclusion(conclusion);
+                }));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.giraone.rules;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -227,4 +231,69 @@ class RuleBookTest {
         assertThat(outcome.result.conclusion).isEqualTo(expectedConclusion);
         assertThat(outcome.result.hint).isEqualTo(expectedHint);
     }
-}
\ No newline at end of file
+
+    @Test
+    void applyOnFacts_groupedRulesAreBuiltOnlyOnce() {
+
+        // arrange
+        AtomicInteger outerGroupBuilds = new AtomicInteger();
+        AtomicInteger innerGroupBuilds = new AtomicInteger();
+
+        RuleBook<AnimalFacts, Result> ruleBook = new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts("If animal is a mammal?")
+                .whenFacts(facts -> facts.mammal)
+                .thenGroupRules(group -> {
+                    outerGroupBuilds.incrementAndGet();
+                    group.addRule(new Rule<AnimalFacts, Result>()
+                        .whenFacts("If mammal weights more than 2kg?")
+                        .whenFacts(facts -> facts.weightInKg > 2)
+                        .thenGroupRules(innerGroup -> {
+                            innerGroupBuilds.incrementAndGet();
+                            innerGroup.addRule(new Rule<AnimalFacts, Result>()
+                                .whenFacts("true")
+                                .whenFacts(facts -> true)
+                                .thenStopWith(outcome -> outcome.result.addConclusion("A " + outcome.facts.animalName + " cannot fly.")));
+                        }));
+                })
+            );
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = ruleBook.compile();
+
+        // act
+        for (int i = 0; i < 10; i++) {
+            assertThat(ruleBook.applyOnFacts(new AnimalFacts("cow", true, 750), new Result()).result.conclusion)
+                .isEqualTo("A cow cannot fly.");
+            assertThat(compiledRuleBook.applyOnFacts(new AnimalFacts("cow", true, 750), new Result()).result.conclusion)
+                .isEqualTo("A cow cannot fly.");
+        }
+
+        // assert
+        assertThat(outerGroupBuilds).hasValue(1);
+        assertThat(innerGroupBuilds).hasValue(1);
+    }
+
+    @Test
+    void applyOnAll_doesNotCompileTheRuleBook() {
+
+        // arrange - duplicate ids are only checked by the compiler
+        RuleBook<AnimalFacts, Result> ruleBook = new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .id("mammal")
+                .whenFacts(facts -> facts.mammal)
+                .thenProceedWith(outcome -> outcome.result.addConclusion("mammal")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .id("mammal")
+                .whenFacts(facts -> facts.weightInKg > 2)
+                .thenProceedWith(outcome -> outcome.result.setHint("heavy")));
+        AnimalFacts[] animalFacts = { new AnimalFacts("cow", true, 750), new AnimalFacts("sea hawk", false, 1) };
+
+        // act
+        List<Outcome<AnimalFacts, Result>> outcomes = ruleBook.applyOnAll(animalFacts, Result::new);
+        List<Outcome<AnimalFacts, Result>> outcomesFromList = ruleBook.applyOnAll(Arrays.asList(animalFacts), Result::new);
+
+        // assert
+        assertThat(outcomes).extracting(outcome -> outcome.result.conclusion + "/" + outcome.result.hint)
+            .containsExactly("mammal/heavy", "null/null");
+        assertThat(outcomesFromList).extracting(outcome -> outcome.facts).containsExactly(animalFacts);
+    }
+}
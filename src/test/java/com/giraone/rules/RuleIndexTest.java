@@ -0,0 +1,119 @@
+package com.giraone.rules;
+
+import com.giraone.rules.RuleBookTest.AnimalFacts;
+import com.giraone.rules.RuleBookTest.Result;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RuleIndexTest {
+
+    @Test
+    void applyOnFacts_visitsOnlyIndexedRulesOfKey() {
+
+        // arrange
+        AtomicInteger keyExtractorCalls = new AtomicInteger();
+        Function<AnimalFacts, String> animalName = facts -> {
+            keyExtractorCalls.incrementAndGet();
+            return facts.animalName;
+        };
+        RuleBook<AnimalFacts, Result> ruleBook = new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFactsKey(animalName, "cow")
+                .thenProceedWith(outcome -> outcome.result.addConclusion("A cow eats grass.")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFactsKey(animalName, "cat")
+                .thenProceedWith(outcome -> outcome.result.addConclusion("A cat eats mice.")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFactsKey(animalName, "cow")
+                .thenStopWith(outcome -> outcome.result.addConclusion("A cow gives milk.")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFactsKey(animalName, "cat")
+                .thenGroupRules(group -> group
+                    .addRule(new Rule<AnimalFacts, Result>()
+                        .whenFacts(facts -> facts.weightInKg > 5)
+                        .thenStopWith(outcome -> outcome.result.addConclusion("A big cat is a tiger.")))))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFactsKey(animalName, "cow")
+                .thenProceedWith(outcome -> outcome.result.setHint("not reached, when stopped")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> true)
+                .thenProceedWith(outcome -> outcome.result.setHint("after the indexed rules")));
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = ruleBook.compile();
+
+        // act + assert
+        String[][] animals = { { "cow", "1", "A cow eats grass. A cow gives milk.", null },
+            { "cat", "4", "A cat eats mice.", "after the indexed rules" },
+            { "cat", "200", "A cat eats mice. A big cat is a tiger.", null },
+            { "dog", "30", null, "after the indexed rules" } };
+        for (String[] animal : animals) {
+            Result compiled = compiledRuleBook.applyOnFacts(new AnimalFacts(animal[0], true, Integer.parseInt(animal[1])), new Result()).result;
+            Result legacy = ruleBook.applyOnFacts(new AnimalFacts(animal[0], true, Integer.parseInt(animal[1])), new Result()).result;
+            assertThat(compiled.conclusion).isEqualTo(animal[2]).isEqualTo(legacy.conclusion);
+            assertThat(compiled.hint).isEqualTo(animal[3]).isEqualTo(legacy.hint);
+        }
+        keyExtractorCalls.set(0);
+        compiledRuleBook.applyOnFacts(new AnimalFacts("cat", true, 4), new Result());
+        assertThat(keyExtractorCalls).hasValue(1);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "1, A small animal.",
+        "2, A small animal.",
+        "3, A medium animal. A heavy animal.",
+        "750, A medium animal. A heavy animal. A cow sized animal.",
+        "1000, A heavy animal. A cow sized animal.",
+        "200000, A heavy animal. A giant animal.",
+        "-5,"
+    })
+    void applyOnFacts_findsIndexedRangesOfValue(int weightInKg, String expectedConclusion) {
+
+        // arrange
+        AtomicInteger valueExtractorCalls = new AtomicInteger();
+        ToLongFunction<AnimalFacts> weight = facts -> {
+            valueExtractorCalls.incrementAndGet();
+            return facts.weightInKg;
+        };
+        RuleBook<AnimalFacts, Result> ruleBook = new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFactsInRange(weight, 0, 2)
+                .thenProceedWith(outcome -> outcome.result.addConclusion("A small animal.")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFactsInRange(weight, 3, 999)
+                .thenProceedWith(outcome -> outcome.result.addConclusion("A medium animal.")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFactsInRange(weight, 3, Long.MAX_VALUE)
+                .thenProceedWith(outcome -> outcome.result.addConclusion("A heavy animal.")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFactsInRange(weight, 100001, Long.MAX_VALUE)
+                .thenStopWith(outcome -> outcome.result.addConclusion("A giant animal.")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFactsInRange(weight, 500, 100000)
+                .thenProceedWith(outcome -> outcome.result.addConclusion("A cow sized animal.")));
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = ruleBook.compile();
+
+        // act
+        Result compiled = compiledRuleBook.applyOnFacts(new AnimalFacts("animal", true, weightInKg), new Result()).result;
+        int compiledValueExtractorCalls = valueExtractorCalls.getAndSet(0);
+        Result legacy = ruleBook.applyOnFacts(new AnimalFacts("animal", true, weightInKg), new Result()).result;
+
+        // assert
+        assertThat(compiled.conclusion).isEqualTo(expectedConclusion).isEqualTo(legacy.conclusion);
+        assertThat(compiledValueExtractorCalls).isEqualTo(1);
+    }
+
+    @Test
+    void whenFactsInRange_failsOnEmptyRange() {
+
+        assertThatThrownBy(() -> new Rule<AnimalFacts, Result>().whenFactsInRange(facts -> facts.weightInKg, 2, 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
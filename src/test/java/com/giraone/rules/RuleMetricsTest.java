@@ -0,0 +1,91 @@
+package com.giraone.rules;
+
+import com.giraone.rules.RuleBookTest.AnimalFacts;
+import com.giraone.rules.RuleBookTest.Result;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RuleMetricsTest {
+
+    @Test
+    void instrument_countsClausesOfEachRule() {
+
+        // arrange
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = AnimalRuleBooks.simple().compile();
+        CompiledRuleBook<AnimalFacts, Result> instrumented = compiledRuleBook.instrument();
+
+        // act
+        Result cow = instrumented.applyOnFacts(new AnimalFacts("cow", true, 750), new Result()).result;
+        instrumented.applyOnFacts(new AnimalFacts("sea hawk", false, 1), new Result());
+
+        // assert
+        assertThat(compiledRuleBook.getMetrics()).isNull();
+        assertThat(cow.conclusion).isEqualTo("A cow cannot fly.");
+        RuleMetrics metrics = instrumented.getMetrics();
+        assertThat(metrics.snapshot()).extracting(RuleStatistics::getWhenFactsEvaluated).containsExactly(2L, 2L, 1L, 1L);
+        assertThat(metrics.snapshot()).extracting(RuleStatistics::getWhenFactsMatched).containsExactly(0L, 1L, 0L, 1L);
+        assertThat(metrics.snapshot()).extracting(RuleStatistics::getThenApplied).containsExactly(0L, 1L, 0L, 1L);
+        assertThat(metrics.snapshot()).extracting(RuleStatistics::getStopped).containsExactly(0L, 1L, 0L, 0L);
+        assertThat(metrics.snapshot("1").getRule().getWhenFactsDescription()).isEqualTo("If animal is no mammal?");
+        assertThat(metrics.snapshot("1").getNanos()).isPositive();
+    }
+
+    @Test
+    void instrument_countsOutcomeClauses() {
+
+        // arrange
+        CompiledRuleBook<AnimalFacts, Result> instrumented = AnimalRuleBooks.outcomeConditions().compile().instrument();
+
+        // act
+        instrumented.applyOnFacts(new AnimalFacts("whale shark", false, 200000), new Result());
+
+        // assert
+        RuleStatistics statistics = instrumented.getMetrics().snapshot("1");
+        assertThat(statistics.getWhenOutcomeEvaluated()).isEqualTo(1L);
+        assertThat(statistics.getWhenOutcomeMatched()).isEqualTo(1L);
+        assertThat(statistics.getStopped()).isEqualTo(1L);
+    }
+
+    @Test
+    void instrument_countsConcurrentEvaluationsExactly() throws Exception {
+
+        // arrange
+        CompiledRuleBook<AnimalFacts, Result> instrumented = AnimalRuleBooks.simple().compile().instrument();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // act
+        try {
+            for (int t = 0; t < 8; t++) {
+                futures.add(executorService.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        instrumented.applyOnFacts(new AnimalFacts("cow", true, 750), new Result());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        // assert
+        assertThat(instrumented.getMetrics().snapshot("3").getThenApplied()).isEqualTo(80_000L);
+
+        // act
+        instrumented.getMetrics().reset();
+
+        // assert
+        assertThat(instrumented.getMetrics().snapshot("3").getThenApplied()).isZero();
+        assertThatThrownBy(() -> instrumented.getMetrics().snapshot("unknown")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
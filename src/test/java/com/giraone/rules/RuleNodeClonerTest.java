@@ -0,0 +1,84 @@
+package com.giraone.rules;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RuleNodeClonerTest {
+
+    // the position of the major version and of the tag of the first constant in a class file
+    private static final int MAJOR_VERSION_POSITION = 6;
+    private static final int FIRST_TAG_POSITION = 10;
+
+    @Test
+    void rename_handlesTemplateClassFile() throws IOException {
+
+        // arrange
+        byte[] template = readClassFile(SpecializedRuleNode.class);
+
+        // act
+        byte[] copy = RuleNodeCloner.rename(template, identityNames());
+
+        // assert - fails, when the compiler creates a class file version or constant, that the cloner does not know
+        assertThat(copy).isEqualTo(template);
+    }
+
+    @Test
+    void rename_failsOnUnknownClassFileVersion() throws IOException {
+
+        // arrange
+        byte[] template = readClassFile(SpecializedRuleNode.class);
+        template[MAJOR_VERSION_POSITION] = (byte) ((RuleNodeCloner.MAX_MAJOR_VERSION + 1) >>> 8);
+        template[MAJOR_VERSION_POSITION + 1] = (byte) (RuleNodeCloner.MAX_MAJOR_VERSION + 1);
+
+        // act + assert
+        assertThatThrownBy(() -> RuleNodeCloner.rename(template, identityNames()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("version");
+    }
+
+    @Test
+    void rename_failsOnUnknownConstantTag() throws IOException {
+
+        // arrange
+        byte[] template = readClassFile(SpecializedRuleNode.class);
+        template[FIRST_TAG_POSITION] = 99;
+
+        // act + assert
+        assertThatThrownBy(() -> RuleNodeCloner.rename(template, identityNames()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("tag 99");
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private static Map<String, String> identityNames() {
+
+        final Map<String, String> names = new HashMap<>();
+        for (Class<?> placeholder : new Class<?>[] { SpecializedRuleNode.class, SpecializedRuleNext.class, SpecializedRuleChild.class }) {
+            final String internalName = placeholder.getName().replace('.', '/');
+            names.put(internalName, internalName);
+        }
+        return names;
+    }
+
+    private static byte[] readClassFile(Class<?> type) throws IOException {
+
+        try (InputStream in = type.getResourceAsStream(type.getSimpleName() + ".class")) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.giraone.rules;
+
+import com.giraone.rules.RuleBookTest.AnimalFacts;
+import com.giraone.rules.RuleBookTest.Result;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleSegmentTest {
+
+    private static final int INTERVAL = RuleSegment.SAMPLE_RATE * RuleSegment.REORDER_INTERVAL;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final EvaluationContext<AnimalFacts, Result> context = new RuleBook<AnimalFacts, Result>().compile().newContext();
+
+    @Test
+    void apply_reordersByCostAndStops() {
+
+        // arrange - an expensive rule, that never stops, and a cheap rule, that always stops
+        CompiledRule<AnimalFacts, Result>[] rules = rules(
+            rule(100, facts -> facts.weightInKg > 100000, 0),
+            rule(1, facts -> facts.mammal, 0));
+        RuleSegment segment = new RuleSegment(0, 2, clock::get);
+
+        // act
+        apply(segment, rules, new AnimalFacts("cow", true, 750), INTERVAL);
+
+        // assert
+        assertThat(segment.order()).containsExactly(1, 0);
+    }
+
+    @Test
+    void apply_reordersAgainWhenFactsChange() {
+
+        // arrange
+        CompiledRule<AnimalFacts, Result>[] rules = rules(
+            rule(1, facts -> facts.weightInKg > 1000, 0),
+            rule(1, facts -> facts.mammal, 0));
+        RuleSegment segment = new RuleSegment(0, 2, clock::get);
+        apply(segment, rules, new AnimalFacts("cow", true, 750), 8 * INTERVAL);
+        assertThat(segment.order()).containsExactly(1, 0);
+
+        // act - a long history of stopping mammals must not outweigh the recent facts
+        apply(segment, rules, new AnimalFacts("shark", false, 2000), 2 * INTERVAL);
+
+        // assert
+        assertThat(segment.order()).containsExactly(0, 1);
+    }
+
+    @Test
+    void apply_measuresOnlyTheWhenClauses() {
+
+        // arrange - the first rule has a cheap when clause, but an expensive then clause
+        CompiledRule<AnimalFacts, Result>[] rules = rules(
+            rule(10, facts -> true, 1000),
+            rule(20, facts -> true, 0));
+        RuleSegment segment = new RuleSegment(0, 2, clock::get);
+        apply(segment, rules, new AnimalFacts("cow", true, 750), INTERVAL);
+        // the second rule was never applied, so it is tried first
+        assertThat(segment.order()).containsExactly(1, 0);
+
+        // act
+        apply(segment, rules, new AnimalFacts("cow", true, 750), INTERVAL);
+
+        // assert
+        assertThat(segment.order()).containsExactly(0, 1);
+    }
+
+    @Test
+    void copy_startsWithDefinitionOrder() {
+
+        // arrange
+        CompiledRule<AnimalFacts, Result>[] rules = rules(
+            rule(100, facts -> false, 0),
+            rule(1, facts -> true, 0));
+        RuleSegment segment = new RuleSegment(0, 2, clock::get);
+        apply(segment, rules, new AnimalFacts("cow", true, 750), INTERVAL);
+
+        // act
+        RuleSegment copy = segment.copy();
+
+        // assert
+        assertThat(segment.order()).containsExactly(1, 0);
+        assertThat(copy.order()).containsExactly(0, 1);
+    }
+
+    @Test
+    void applyOnFacts_keepsRulesAroundReorderedSegmentInPlace() {
+
+        // arrange
+        RuleBook<AnimalFacts, Result> ruleBook = new RuleBook<AnimalFacts, Result>()
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> facts.weightInKg <= 0)
+                .thenStopWith(outcome -> outcome.result.setHint("You must set a positive weight.")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .orderIndependent()
+                .whenFacts(facts -> facts.weightInKg > 100000)
+                .thenProceedWith(outcome -> outcome.result.addConclusion("heavy")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .orderIndependent()
+                .whenFacts(facts -> facts.mammal)
+                .thenStopWith(outcome -> outcome.result.setHint("mammal")))
+            .addRule(new Rule<AnimalFacts, Result>()
+                .whenFacts(facts -> true)
+                .thenProceedWith(outcome -> outcome.result.setHint("not reached, when stopped")));
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = ruleBook.compile();
+        EvaluationContext<AnimalFacts, Result> cowContext = compiledRuleBook.newContext();
+
+        // act
+        for (int i = 0; i < 2 * INTERVAL; i++) {
+            compiledRuleBook.applyOnFacts(cowContext, new AnimalFacts("cow", true, 750), new Result());
+        }
+        Outcome<AnimalFacts, Result> cow = compiledRuleBook.applyOnFacts(new AnimalFacts("cow", true, 750), new Result());
+        Outcome<AnimalFacts, Result> seaHawk = compiledRuleBook.applyOnFacts(new AnimalFacts("sea hawk", false, 1), new Result());
+
+        // assert - the order within the segment is tested above, the rules around the segment keep their place
+        assertThat(cow.result.hint).isEqualTo("mammal");
+        assertThat(seaHawk.result.hint).isEqualTo("not reached, when stopped");
+        assertThat(compiledRuleBook.applyOnFacts(new AnimalFacts("virus", true, 0), new Result()).result.hint)
+            .isEqualTo("You must set a positive weight.");
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private void apply(RuleSegment segment, CompiledRule<AnimalFacts, Result>[] rules, AnimalFacts facts, int times) {
+
+        final Result result = new Result();
+        for (int i = 0; i < times; i++) {
+            context.reset(facts, result);
+            segment.apply(rules, context);
+        }
+    }
+
+    /**
+     * A rule, that stops, when its when clause is true, and advances the clock by the given nanoseconds.
+     */
+    private CompiledRule<AnimalFacts, Result> rule(long whenNanos, Predicate<AnimalFacts> whenFactsFunction, long thenNanos) {
+
+        return new CompiledRule<>(null,
+            facts -> {
+                clock.addAndGet(whenNanos);
+                return whenFactsFunction.test(facts);
+            }, -1, -1, null,
+            outcome -> {
+                clock.addAndGet(thenNanos);
+                return true;
+            }, null, null, null);
+    }
+
+    @SafeVarargs
+    private static CompiledRule<AnimalFacts, Result>[] rules(CompiledRule<AnimalFacts, Result>... rules) {
+        return rules;
+    }
+}
@@ -0,0 +1,88 @@
+package com.giraone.rules;
+
+import com.giraone.rules.RuleBookTest.AnimalFacts;
+import com.giraone.rules.RuleBookTest.Result;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpecializedRuleBookTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "virus,true,0",
+        "sea hawk,false,1",
+        "cow,true,750",
+        "whale,true,200000",
+        "whale shark,false,200000"
+    })
+    void applyOnFacts_givesSameResultAsRuleBook(String animal, boolean mammal, int weightInKg) {
+
+        for (RuleBook<AnimalFacts, Result> ruleBook : AnimalRuleBooks.all()) {
+
+            // arrange
+            SpecializedRuleBook<AnimalFacts, Result> specializedRuleBook = ruleBook.compile().specialize();
+            Result expected = ruleBook.applyOnFacts(new AnimalFacts(animal, mammal, weightInKg), new Result()).result;
+
+            // act
+            Outcome<AnimalFacts, Result> outcome = specializedRuleBook.applyOnFacts(new AnimalFacts(animal, mammal, weightInKg), new Result());
+
+            // assert
+            assertThat(outcome.result.conclusion).isEqualTo(expected.conclusion);
+            assertThat(outcome.result.hint).isEqualTo(expected.hint);
+        }
+    }
+
+    @Test
+    void specialize_usesOneClassPerNodeAndOneClassLoader() {
+
+        // arrange
+        CompiledRuleBook<AnimalFacts, Result> compiledRuleBook = AnimalRuleBooks.grouped().compile();
+
+        // act
+        SpecializedRuleBook<AnimalFacts, Result> specializedRuleBook = compiledRuleBook.specialize();
+
+        // assert
+        assertThat(specializedRuleBook.getRuleInfos()).isEqualTo(compiledRuleBook.getRuleInfos());
+        assertThat(specializedRuleBook.nodes).hasSize(compiledRuleBook.getRuleInfos().size());
+        assertThat(specializedRuleBook.nodes.stream().map(Object::getClass).distinct())
+            .hasSize(specializedRuleBook.nodes.size())
+            .allSatisfy(nodeClass -> assertThat(nodeClass.getName()).startsWith(SpecializedRuleNode.class.getName() + "$$"));
+        assertThat(specializedRuleBook.nodes.stream().map(node -> node.getClass().getClassLoader()).distinct()).hasSize(1);
+        assertThat(specializedRuleBook.nodes.stream().flatMap(node -> Arrays.stream(node.getClass().getDeclaredFields())).map(Field::getType))
+            .doesNotContain(SpecializedRuleNext.class, SpecializedRuleChild.class);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "0,0",
+        "15,15",
+        "16,16",
+        "300,300",
+        "999,999",
+        "1000,"
+    })
+    void applyOnFacts_splitsLongLevelsIntoChains(int stopAt, Integer expectedLast) {
+
+        // arrange
+        RuleBook<AnimalFacts, Result> ruleBook = new RuleBook<>();
+        for (int i = 0; i < 1000; i++) {
+            final String hint = Integer.toString(i);
+            final Rule<AnimalFacts, Result> rule = new Rule<>();
+            ruleBook.addRule(i == stopAt
+                ? rule.thenStopWith(outcome -> outcome.result.hint = hint)
+                : rule.thenProceedWith(outcome -> outcome.result.hint = hint));
+        }
+
+        // act
+        Outcome<AnimalFacts, Result> outcome = ruleBook.compile().specialize().applyOnFacts(new AnimalFacts("cow", true, 750), new Result());
+
+        // assert
+        assertThat(outcome.result.hint).isEqualTo(expectedLast != null ? expectedLast.toString() : "999");
+    }
+}